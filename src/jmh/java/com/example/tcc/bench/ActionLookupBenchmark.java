@@ -0,0 +1,92 @@
+package com.example.tcc.bench;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import com.example.tcc.manager.TccActionRegistry;
+
+/**
+ * Resolving and calling a confirm method: the registry's pre-bound invoker against
+ * the per-call scan of {@code getMethods()} followed by {@code Method.invoke} it replaced
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionLookupBenchmark {
+
+    private static final Object[] ARGS = { "user-1", new BigDecimal("10.00") };
+
+    private AnnotationConfigApplicationContext context;
+    private TccActionRegistry registry;
+    private Object bean;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCoordinator.start();
+        registry = context.getBean(TccActionRegistry.class);
+        bean = context.getBean("benchmarkActions");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object registryLookup() {
+        return registry.getInvoker("benchmarkActions", "confirm");
+    }
+
+    @Benchmark
+    public Object reflectiveLookup() {
+        return findMethod(bean.getClass(), "confirm", ARGS);
+    }
+
+    @Benchmark
+    public void registryInvoke() throws Throwable {
+        registry.getInvoker("benchmarkActions", "confirm").invoke(ARGS);
+    }
+
+    @Benchmark
+    public void reflectiveInvoke() throws Exception {
+        findMethod(bean.getClass(), "confirm", ARGS).invoke(bean, ARGS);
+    }
+
+    /**
+     * Argument-driven method resolution the coordinator used before the registry
+     */
+    private static Method findMethod(Class<?> clazz, String methodName, Object[] args) {
+        for (Method method : clazz.getMethods()) {
+            if (!method.getName().equals(methodName) || method.getParameterCount() != args.length) {
+                continue;
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            boolean match = true;
+            for (int i = 0; i < args.length && match; i++) {
+                match = args[i] == null || ClassUtils.isAssignableValue(parameterTypes[i], args[i]);
+            }
+            if (match) {
+                return method;
+            }
+        }
+        throw new IllegalStateException("No method " + methodName + " in " + clazz.getName());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tcc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.example.tcc.context.TccTransactionContext;
+import com.example.tcc.context.TccTransactionContextHolder;
+
+/**
+ * Cost of the TccAop advice on a {@code @TccAction} method: an unadvised method of the same proxy,
+ * the advice outside a global transaction, and the advice registering a participant inside one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdviceBenchmark {
+
+    private static final String TX_ID = "bench-advice";
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private AnnotationConfigApplicationContext context;
+    private BenchmarkActions actions;
+    private InMemoryParticipantStore participantStore;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCoordinator.start();
+        actions = context.getBean(BenchmarkActions.class);
+        participantStore = context.getBean(InMemoryParticipantStore.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void unadvisedMethod() {
+        actions.plain("user-1", AMOUNT);
+    }
+
+    @Benchmark
+    public void actionOutsideTransaction() {
+        actions.tryAction("user-1", AMOUNT);
+    }
+
+    @Benchmark
+    public void actionInsideTransaction() {
+        TccTransactionContextHolder.setContext(new TccTransactionContext(TX_ID));
+        try {
+            actions.tryAction("user-1", AMOUNT);
+        } finally {
+            participantStore.remove(TX_ID);
+            TccTransactionContextHolder.clearContext();
+        }
+    }
+}
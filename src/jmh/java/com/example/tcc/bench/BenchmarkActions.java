@@ -0,0 +1,27 @@
+package com.example.tcc.bench;
+
+import java.math.BigDecimal;
+
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccAction;
+
+/**
+ * Participant with empty try/confirm/cancel bodies, so only the coordinator is measured
+ */
+@Component("benchmarkActions")
+public class BenchmarkActions {
+
+    @TccAction(confirmMethod = "confirm", cancelMethod = "cancel")
+    public void tryAction(String ownerId, BigDecimal amount) {
+    }
+
+    public void plain(String ownerId, BigDecimal amount) {
+    }
+
+    public void confirm(String ownerId, BigDecimal amount) {
+    }
+
+    public void cancel(String ownerId, BigDecimal amount) {
+    }
+}
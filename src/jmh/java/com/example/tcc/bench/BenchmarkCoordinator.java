@@ -0,0 +1,67 @@
+package com.example.tcc.bench;
+
+import org.mockito.Mockito;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+
+import com.example.tcc.aop.TccAop;
+import com.example.tcc.aop.TccMetricsAop;
+import com.example.tcc.codec.BinaryParticipantCodec;
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.manager.TccActionRegistry;
+import com.example.tcc.manager.TccAdmissionController;
+import com.example.tcc.manager.TccAsyncCommitter;
+import com.example.tcc.manager.TccLocalTransactionPhase;
+import com.example.tcc.manager.TccParticipantExecutor;
+import com.example.tcc.manager.TccTransactionManager;
+import com.example.tcc.metrics.TccMetrics;
+import com.example.tcc.remote.RemoteCallSigner;
+import com.example.tcc.remote.RemoteParticipantClient;
+import com.example.tcc.repository.TccLogRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The production coordinator beans, aspects included, wired to in-memory stores.
+ * Class-based proxies as with Boot, so the stores can be looked up by their own type.
+ * No Boot auto-configuration, no database and no Redis.
+ */
+@Configuration
+@EnableAspectJAutoProxy(proxyTargetClass = true)
+@Import({ TccAop.class, TccMetricsAop.class, TccTransactionManager.class, TccActionRegistry.class,
+    TccParticipantExecutor.class, TccAsyncCommitter.class, TccAdmissionController.class, TccLocalTransactionPhase.class,
+    TccMetrics.class, TccProperties.class, BinaryParticipantCodec.class, RemoteParticipantClient.class, RemoteCallSigner.class,
+    BenchmarkActions.class })
+public class BenchmarkCoordinator {
+
+    public static AnnotationConfigApplicationContext start() {
+        return new AnnotationConfigApplicationContext(BenchmarkCoordinator.class);
+    }
+
+    @Bean
+    public InMemoryTccLogStore tccLogStore() {
+        return new InMemoryTccLogStore();
+    }
+
+    @Bean
+    public InMemoryParticipantStore participantStore() {
+        return new InMemoryParticipantStore();
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    /**
+     * Only read on failure and recovery paths, which the benchmarks do not take
+     */
+    @Bean
+    public TccLogRepository tccLogRepository() {
+        return Mockito.mock(TccLogRepository.class);
+    }
+}
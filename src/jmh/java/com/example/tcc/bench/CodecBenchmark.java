@@ -0,0 +1,68 @@
+package com.example.tcc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.example.tcc.codec.BinaryParticipantCodec;
+import com.example.tcc.codec.JacksonParticipantCodec;
+import com.example.tcc.codec.ParticipantCodec;
+import com.example.tcc.context.Participant;
+
+/**
+ * Participant serialization with each codec. The binary codec is taken from the context
+ * so the participant is encoded by action id, as it is in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({ "binary", "json" })
+    public String codecType;
+
+    private AnnotationConfigApplicationContext context;
+    private ParticipantCodec codec;
+    private Participant participant;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCoordinator.start();
+        codec = "json".equals(codecType) ? new JacksonParticipantCodec() : context.getBean(BinaryParticipantCodec.class);
+        participant = new Participant("benchmarkActions", "confirm", "cancel",
+            new Object[] { "user-1", new BigDecimal("10.00") }, 0);
+        encoded = codec.encode(participant);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(participant);
+    }
+
+    @Benchmark
+    public Participant decode() {
+        return codec.decode(encoded);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.tcc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.example.tcc.manager.TccTransactionManager;
+
+/**
+ * A whole global transaction: begin, one advised try per participant, then commit or rollback
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompletionBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    @Param({ "1", "2", "8", "32" })
+    public int participants;
+
+    private AnnotationConfigApplicationContext context;
+    private TccTransactionManager manager;
+    private BenchmarkActions actions;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCoordinator.start();
+        manager = context.getBean(TccTransactionManager.class);
+        actions = context.getBean(BenchmarkActions.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        InMemoryTccLogStore logStore = context.getBean(InMemoryTccLogStore.class);
+        InMemoryParticipantStore participantStore = context.getBean(InMemoryParticipantStore.class);
+        context.close();
+        if (logStore.size() != 0 || participantStore.size() != 0) {
+            throw new IllegalStateException("Transactions left behind: " + logStore.size() + " logs, "
+                + participantStore.size() + " participant lists");
+        }
+    }
+
+    @Benchmark
+    public void commit() {
+        manager.begin();
+        tries();
+        manager.commit();
+    }
+
+    @Benchmark
+    public void rollback() {
+        manager.begin();
+        tries();
+        manager.rollback();
+    }
+
+    private void tries() {
+        for (int i = 0; i < participants; i++) {
+            actions.tryAction("user-" + i, AMOUNT);
+        }
+    }
+}
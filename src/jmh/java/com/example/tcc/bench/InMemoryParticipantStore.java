@@ -0,0 +1,36 @@
+package com.example.tcc.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.tcc.context.Participant;
+import com.example.tcc.store.ParticipantStore;
+
+/**
+ * ParticipantStore stand-in, so commit/rollback numbers measure the coordinator and not Redis
+ */
+public class InMemoryParticipantStore implements ParticipantStore {
+
+    private final Map<String, List<Participant>> participants = new ConcurrentHashMap<>();
+
+    @Override
+    public void append(String txId, List<Participant> batch) {
+        participants.computeIfAbsent(txId, k -> new ArrayList<>()).addAll(batch);
+    }
+
+    @Override
+    public List<Participant> load(String txId) {
+        return participants.getOrDefault(txId, List.of());
+    }
+
+    @Override
+    public void remove(String txId) {
+        participants.remove(txId);
+    }
+
+    public int size() {
+        return participants.size();
+    }
+}
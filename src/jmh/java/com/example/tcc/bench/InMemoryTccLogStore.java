@@ -0,0 +1,55 @@
+package com.example.tcc.bench;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.store.TccLogStore;
+
+/**
+ * TccLogStore stand-in keeping only the status and completed participants of each transaction
+ */
+public class InMemoryTccLogStore implements TccLogStore {
+
+    private final Map<String, String> statuses = new ConcurrentHashMap<>();
+    private final Map<String, String> completed = new ConcurrentHashMap<>();
+
+    @Override
+    public void insert(TccLog tccLog) {
+        statuses.put(tccLog.getTxId(), tccLog.getStatus());
+    }
+
+    @Override
+    public boolean updateStatus(String txId, String expected, String status) {
+        return statuses.replace(txId, expected, status);
+    }
+
+    @Override
+    public void updateCompletedParticipants(String txId, String completedParticipants) {
+        completed.put(txId, completedParticipants);
+    }
+
+    @Override
+    public void delete(String txId) {
+        statuses.remove(txId);
+        completed.remove(txId);
+    }
+
+    @Override
+    public Optional<TccLog> find(String txId) {
+        String status = statuses.get(txId);
+        if (status == null) {
+            return Optional.empty();
+        }
+        TccLog tccLog = new TccLog();
+        tccLog.setTxId(txId);
+        tccLog.setStatus(status);
+        tccLog.setCompletedParticipants(completed.get(txId));
+        return Optional.of(tccLog);
+    }
+
+    public int size() {
+        return statuses.size();
+    }
+}
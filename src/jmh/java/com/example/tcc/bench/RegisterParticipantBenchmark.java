@@ -0,0 +1,66 @@
+package com.example.tcc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.example.tcc.context.Participant;
+import com.example.tcc.context.TccTransactionContext;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.manager.TccTransactionManager;
+
+/**
+ * registerParticipant without a local transaction, i.e. buffered and flushed to the store at once
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegisterParticipantBenchmark {
+
+    private static final String TX_ID = "bench-register";
+
+    private AnnotationConfigApplicationContext context;
+    private TccTransactionManager manager;
+    private InMemoryParticipantStore participantStore;
+    private Participant participant;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCoordinator.start();
+        manager = context.getBean(TccTransactionManager.class);
+        participantStore = context.getBean(InMemoryParticipantStore.class);
+        participant = new Participant("benchmarkActions", "confirm", "cancel",
+            new Object[] { "user-1", new BigDecimal("10.00") }, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void registerParticipant() {
+        TccTransactionContextHolder.setContext(new TccTransactionContext(TX_ID));
+        try {
+            manager.registerParticipant(participant);
+        } finally {
+            participantStore.remove(TX_ID);
+            TccTransactionContextHolder.clearContext();
+        }
+    }
+}
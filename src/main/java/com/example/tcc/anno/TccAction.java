@@ -10,4 +10,10 @@ import java.lang.annotation.Target;
 public @interface TccAction {
     String confirmMethod();
     String cancelMethod();
+
+    /**
+     * Ordering group. Participants of the same group are confirmed/cancelled concurrently,
+     * groups are confirmed in ascending order and cancelled in descending order.
+     */
+    int order() default 0;
 }
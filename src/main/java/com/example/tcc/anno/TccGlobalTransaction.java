@@ -8,4 +8,24 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface TccGlobalTransaction {
+
+    /**
+     * Return to the caller as soon as the CONFIRMING status is durable,
+     * confirm calls and cleanup are finished in the background.
+     */
+    boolean asyncCommit() default false;
+
+    /**
+     * Milliseconds the transaction may spend trying, 0 uses tcc.recovery.trying-timeout-ms,
+     * which also caps it. Tries starting after the deadline fail with TccTimeoutException,
+     * as does the commit, and the transaction is cancelled.
+     */
+    long timeout() default 0;
+
+    /**
+     * Max transactions of this method in flight on this node, 0 for no limit of its own.
+     * Beyond it new transactions wait up to tcc.admission.queue-timeout-ms, then fail with
+     * TccRejectedException; tcc.admission.max-in-flight limits all methods together.
+     */
+    int maxInFlight() default 0;
 }
@@ -0,0 +1,35 @@
+package com.example.tcc.anno;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a client method as the try of a {@code @TccAction} living on another node.
+ * The advice sends the try over HTTP with the method's arguments and registers the remote
+ * participant, the method body itself is never run, so it should be empty and return void.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TccRemoteAction {
+
+    /**
+     * Node name, resolved to a base URL through {@code tcc.remote.nodes.<node>}
+     */
+    String node();
+
+    /**
+     * Name of the participant bean on the remote node
+     */
+    String bean();
+
+    String tryMethod();
+    String confirmMethod();
+    String cancelMethod();
+
+    /**
+     * Ordering group, as {@link TccAction#order()}
+     */
+    int order() default 0;
+}
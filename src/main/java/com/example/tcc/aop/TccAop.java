@@ -1,16 +1,32 @@
 package com.example.tcc.aop;
 
+import java.util.UUID;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import com.example.tcc.anno.TccAction;
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.anno.TccRemoteAction;
 import com.example.tcc.context.Participant;
+import com.example.tcc.context.TccTransactionContext;
 import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.exception.TccException;
+import com.example.tcc.exception.TccRemoteException;
+import com.example.tcc.exception.TccTimeoutException;
+import com.example.tcc.manager.TccAdmissionController;
+import com.example.tcc.manager.TccActionRegistry;
 import com.example.tcc.manager.TccTransactionManager;
+import com.example.tcc.metrics.TccMetrics;
+import com.example.tcc.remote.RemoteCall;
+import com.example.tcc.remote.RemoteParticipantClient;
+
+import io.micrometer.core.instrument.Timer;
 
 @Aspect
 @Component
@@ -18,34 +34,140 @@ public class TccAop {
     
     @Autowired
     private TccTransactionManager tccTranscationManager;
+    @Autowired
+    private TccActionRegistry actionRegistry;
+    @Autowired
+    private TccMetrics metrics;
+    @Autowired
+    private RemoteParticipantClient remoteParticipantClient;
+    @Autowired
+    private TccAdmissionController admissionController;
     
-    @Around("@annotation(com.example.tcc.anno.TccGlobalTransaction)")
-    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+    @Around("@annotation(globalTransaction)")
+    public Object around(ProceedingJoinPoint joinPoint, TccGlobalTransaction globalTransaction) throws Throwable {
+        if (TccTransactionContextHolder.getContext() != null) {
+            // nested global transaction, its tries join the outer one which commits or rolls back
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().getName();
+        TccAdmissionController.Permit permit = admissionController.acquire(
+            joinPoint.getSignature().getDeclaringTypeName() + "." + method, globalTransaction.maxInFlight());
+        metrics.inFlight().incrementAndGet();
         try {
-            tccTranscationManager.begin();
-            Object result = joinPoint.proceed();
-            tccTranscationManager.commit();
+            Timer.Sample sample = metrics.start();
+            tccTranscationManager.begin(globalTransaction.timeout());
+            metrics.stop(sample, "tcc.begin");
+
+            Object result = timeTry(joinPoint, method);
+            TccTransactionContext context = TccTransactionContextHolder.getContext();
+            if (context.isExpired()) {
+                // confirming this late would hold frozen funds past the deadline and race recovery
+                throw new TccTimeoutException(context.getTxId(), context.getDeadline());
+            }
+            if (context.isRollbackOnly()) {
+                // the caller swallowed a failed remote try, whose participant must never be confirmed
+                throw new TccException("Transaction " + context.getTxId() + " had a remote try fail");
+            }
+
+            sample = metrics.start();
+            String outcome = "success";
+            try {
+                if (globalTransaction.asyncCommit()) {
+                    tccTranscationManager.commitAsync();
+                } else {
+                    tccTranscationManager.commit();
+                }
+            } catch (Exception e) {
+                outcome = "failure";
+                throw e;
+            } finally {
+                metrics.stop(sample, "tcc.commit", "method", method, "async", String.valueOf(globalTransaction.asyncCommit()), "outcome", outcome);
+            }
             return result;
         } catch (Exception e) {
+            Timer.Sample sample = metrics.start();
             tccTranscationManager.rollback();
+            metrics.stop(sample, "tcc.rollback", "method", method);
             throw e;
+        } finally {
+            // commit and rollback unbind it already, this also covers a failing begin
+            TccTransactionContextHolder.clearContext();
+            metrics.inFlight().decrementAndGet();
+            permit.close();
+        }
+    }
+
+    /**
+     * Time the try body, i.e. the annotated method with every try it calls
+     */
+    private Object timeTry(ProceedingJoinPoint joinPoint, String method) throws Throwable {
+        Timer.Sample sample = metrics.start();
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            metrics.stop(sample, "tcc.try", "method", method, "outcome", outcome);
         }
     }
 
     @Around("@annotation(tccAction)")
     public Object tccActionAround(ProceedingJoinPoint joinPoint, TccAction tccAction) throws Throwable{
-        String txId = TccTransactionContextHolder.getContext();
-        if (txId == null) {
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        if (context == null || context.isRemoteTry()) {
             return joinPoint.proceed();
-        } 
-        String beanName = StringUtils.uncapitalize(joinPoint.getTarget().getClass().getSimpleName());
+        }
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        String beanName = actionRegistry.getBeanName(targetClass);
+        if (beanName == null) {
+            beanName = StringUtils.uncapitalize(targetClass.getSimpleName());
+        }
         Participant participant = new Participant(
             beanName,
             tccAction.confirmMethod(),
             tccAction.cancelMethod(),
-            joinPoint.getArgs()
+            joinPoint.getArgs(),
+            tccAction.order()
         );
         tccTranscationManager.registerParticipant(participant);
         return joinPoint.proceed();
     }
+
+    /**
+     * Run the try on the remote node instead of the method body. The participant is registered
+     * and durable before the try is sent, so whatever happens to the request it is cancelled on
+     * rollback; its node tells a cancel of a try that never applied from one that did.
+     */
+    @Around("@annotation(remoteAction)")
+    public Object remoteActionAround(ProceedingJoinPoint joinPoint, TccRemoteAction remoteAction) throws Throwable {
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        if (context == null) {
+            throw new TccException("@TccRemoteAction " + joinPoint.getSignature().getName() + " must run in a global transaction");
+        }
+        if (context.isExpired()) {
+            throw new TccTimeoutException(context.getTxId(), context.getDeadline());
+        }
+        String branchId = UUID.randomUUID().toString();
+        Participant participant = new Participant(
+            remoteAction.bean(),
+            remoteAction.confirmMethod(),
+            remoteAction.cancelMethod(),
+            joinPoint.getArgs(),
+            remoteAction.order(),
+            remoteAction.node(),
+            branchId
+        );
+        tccTranscationManager.registerRemoteParticipant(participant);
+        try {
+            remoteParticipantClient.tryAction(context.getTxId(), remoteAction.node(),
+                new RemoteCall(branchId, remoteAction.bean(), remoteAction.tryMethod(), joinPoint.getArgs()));
+        } catch (TccRemoteException e) {
+            // a branch whose try did not apply for certain can never be confirmed
+            context.setRollbackOnly();
+            throw e;
+        }
+        return null;
+    }
 }
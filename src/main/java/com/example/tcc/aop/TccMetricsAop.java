@@ -0,0 +1,64 @@
+package com.example.tcc.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.metrics.TccMetrics;
+import com.example.tcc.metrics.TccStoreEvent;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every participant store and TccLog store call as {@code tcc.store} and records it as a {@link TccStoreEvent}
+ */
+@Aspect
+@Component
+public class TccMetricsAop {
+
+    @Autowired
+    private TccMetrics metrics;
+
+    @Around("execution(* com.example.tcc.store.ParticipantStore.*(..)) || execution(* com.example.tcc.store.TccLogStore.*(..))")
+    public Object timeStore(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = metrics.start();
+        TccStoreEvent event = new TccStoreEvent();
+        event.begin();
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            String store = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+            String operation = joinPoint.getSignature().getName();
+            metrics.stop(sample, "tcc.store", "store", store, "operation", operation, "outcome", outcome);
+            event.end();
+            if (event.shouldCommit()) {
+                event.txId = txId(joinPoint.getArgs());
+                event.store = store;
+                event.operation = operation;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Store calls take the txId or the TccLog first, batch calls such as findOlderThan have none
+     */
+    private static String txId(Object[] args) {
+        if (args.length == 0) {
+            return null;
+        }
+        if (args[0] instanceof String txId) {
+            return txId;
+        }
+        return args[0] instanceof TccLog tccLog ? tccLog.getTxId() : null;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.tcc.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.example.tcc.context.Participant;
+import com.example.tcc.manager.TccActionDefinition;
+import com.example.tcc.manager.TccActionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.SneakyThrows;
+
+/**
+ * Compact binary participant format, the default.
+ *
+ * <pre>
+ * byte   magic (0xC7)
+ * byte   version (1)
+ * byte   kind: 0 = registered action, 1 = named, 2 = remote without branch id, 3 = remote
+ *        kind 0: int actionId
+ *        kind 1: string beanName, string confirmMethod, string cancelMethod, zigzag varint order
+ *        kind 2: string node, then as kind 1
+ *        kind 3: string node, string branchId, then as kind 1
+ * varint argument count
+ *        per argument: byte tag + tag specific payload
+ * </pre>
+ *
+ * Common argument types have dedicated encodings, anything else falls back to JSON with its class name.
+ * Data starting with '{' is decoded as the legacy Jackson format, so entries written by older nodes
+ * stay readable during a rolling upgrade.
+ */
+@Component
+@ImportRuntimeHints(ParticipantRuntimeHints.class)
+@ConditionalOnProperty(name = "tcc.participant-codec", havingValue = "binary", matchIfMissing = true)
+public class BinaryParticipantCodec implements ParticipantCodec {
+
+    private static final byte MAGIC = (byte) 0xC7;
+    private static final byte VERSION = 1;
+
+    private static final byte KIND_ACTION = 0;
+    private static final byte KIND_NAMED = 1;
+    // written before remote participants had a branch id, still decoded
+    private static final byte KIND_REMOTE_LEGACY = 2;
+    private static final byte KIND_REMOTE = 3;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_BIG_DECIMAL = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_BOOLEAN = 5;
+    private static final byte TAG_DOUBLE = 6;
+    private static final byte TAG_FLOAT = 7;
+    private static final byte TAG_SHORT = 8;
+    private static final byte TAG_BYTE = 9;
+    private static final byte TAG_CHAR = 10;
+    private static final byte TAG_BIG_INTEGER = 11;
+    private static final byte TAG_JSON = 127;
+
+    @Autowired
+    private TccActionRegistry actionRegistry;
+
+    // fallback arguments may be java.time values, pick up the modules on the classpath
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Override
+    public byte[] encode(Participant participant) {
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write(VERSION);
+        // a remote participant may share its bean name with a local action, never encode it by id
+        TccActionDefinition action = participant.getNode() == null ? actionRegistry.findAction(participant) : null;
+        if (action != null) {
+            out.write(KIND_ACTION);
+            out.writeInt(action.getId());
+        } else {
+            if (participant.getNode() != null && participant.getBranchId() != null) {
+                out.write(KIND_REMOTE);
+                out.writeString(participant.getNode());
+                out.writeString(participant.getBranchId());
+            } else if (participant.getNode() != null) {
+                out.write(KIND_REMOTE_LEGACY);
+                out.writeString(participant.getNode());
+            } else {
+                out.write(KIND_NAMED);
+            }
+            out.writeString(participant.getBeanName());
+            out.writeString(participant.getConfirmMethod());
+            out.writeString(participant.getCancelMethod());
+            out.writeVarLong(zigzag(participant.getOrder()));
+        }
+        Object[] args = participant.getArgs() == null ? new Object[0] : participant.getArgs();
+        out.writeVarLong(args.length);
+        for (Object arg : args) {
+            writeArg(out, arg);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    @SneakyThrows
+    public Participant decode(byte[] data) {
+        if (data.length > 0 && data[0] == '{') {
+            return objectMapper.readValue(data, Participant.class);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary participant record");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported participant record version " + version);
+        }
+        Participant participant = new Participant();
+        byte kind = in.get();
+        if (kind == KIND_ACTION) {
+            int id = in.getInt();
+            TccActionDefinition action = actionRegistry.getAction(id);
+            if (action == null) {
+                throw new IllegalStateException("Unknown TCC action id " + id);
+            }
+            participant.setBeanName(action.getBeanName());
+            participant.setConfirmMethod(action.getConfirmMethod());
+            participant.setCancelMethod(action.getCancelMethod());
+            participant.setOrder(action.getOrder());
+        } else {
+            if (kind == KIND_REMOTE || kind == KIND_REMOTE_LEGACY) {
+                participant.setNode(readString(in));
+            }
+            if (kind == KIND_REMOTE) {
+                participant.setBranchId(readString(in));
+            }
+            participant.setBeanName(readString(in));
+            participant.setConfirmMethod(readString(in));
+            participant.setCancelMethod(readString(in));
+            participant.setOrder((int) unzigzag(readVarLong(in)));
+        }
+        Object[] args = new Object[(int) readVarLong(in)];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readArg(in);
+        }
+        participant.setArgs(args);
+        return participant;
+    }
+
+    @SneakyThrows
+    private void writeArg(Writer out, Object arg) {
+        if (arg == null) {
+            out.write(TAG_NULL);
+        } else if (arg instanceof String value) {
+            out.write(TAG_STRING);
+            out.writeString(value);
+        } else if (arg instanceof BigDecimal value) {
+            out.write(TAG_BIG_DECIMAL);
+            out.writeVarLong(zigzag(value.scale()));
+            out.writeLengthPrefixed(value.unscaledValue().toByteArray());
+        } else if (arg instanceof Integer value) {
+            out.write(TAG_INT);
+            out.writeVarLong(zigzag(value));
+        } else if (arg instanceof Long value) {
+            out.write(TAG_LONG);
+            out.writeVarLong(zigzag(value));
+        } else if (arg instanceof Boolean value) {
+            out.write(TAG_BOOLEAN);
+            out.write((byte) (value ? 1 : 0));
+        } else if (arg instanceof Double value) {
+            out.write(TAG_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(value));
+        } else if (arg instanceof Float value) {
+            out.write(TAG_FLOAT);
+            out.writeInt(Float.floatToRawIntBits(value));
+        } else if (arg instanceof Short value) {
+            out.write(TAG_SHORT);
+            out.writeVarLong(zigzag(value));
+        } else if (arg instanceof Byte value) {
+            out.write(TAG_BYTE);
+            out.write(value);
+        } else if (arg instanceof Character value) {
+            out.write(TAG_CHAR);
+            out.writeVarLong(value);
+        } else if (arg instanceof BigInteger value) {
+            out.write(TAG_BIG_INTEGER);
+            out.writeLengthPrefixed(value.toByteArray());
+        } else {
+            out.write(TAG_JSON);
+            out.writeString(arg.getClass().getName());
+            out.writeLengthPrefixed(objectMapper.writeValueAsBytes(arg));
+        }
+    }
+
+    @SneakyThrows
+    private Object readArg(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_STRING -> readString(in);
+            case TAG_BIG_DECIMAL -> {
+                int scale = (int) unzigzag(readVarLong(in));
+                yield new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case TAG_INT -> (int) unzigzag(readVarLong(in));
+            case TAG_LONG -> unzigzag(readVarLong(in));
+            case TAG_BOOLEAN -> in.get() != 0;
+            case TAG_DOUBLE -> Double.longBitsToDouble(in.getLong());
+            case TAG_FLOAT -> Float.intBitsToFloat(in.getInt());
+            case TAG_SHORT -> (short) unzigzag(readVarLong(in));
+            case TAG_BYTE -> in.get();
+            case TAG_CHAR -> (char) readVarLong(in);
+            case TAG_BIG_INTEGER -> new BigInteger(readBytes(in));
+            case TAG_JSON -> {
+                Class<?> type = ClassUtils.forName(readString(in), getClass().getClassLoader());
+                yield objectMapper.readValue(readBytes(in), type);
+            }
+            default -> throw new IllegalArgumentException("Unknown participant argument tag " + tag);
+        };
+    }
+
+    private static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Writer extends ByteArrayOutputStream {
+        Writer() {
+            super(64);
+        }
+
+        void write(byte b) {
+            super.write(b);
+        }
+
+        void writeInt(int value) {
+            write((byte) (value >>> 24));
+            write((byte) (value >>> 16));
+            write((byte) (value >>> 8));
+            write((byte) value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((byte) value);
+        }
+
+        void writeString(String value) {
+            writeLengthPrefixed(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeLengthPrefixed(byte[] bytes) {
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.tcc.codec;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.context.Participant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.SneakyThrows;
+
+/**
+ * JSON with class-name type information on every argument, the format written before the binary codec
+ */
+@Component
+@ImportRuntimeHints(ParticipantRuntimeHints.class)
+@ConditionalOnProperty(name = "tcc.participant-codec", havingValue = "json")
+public class JacksonParticipantCodec implements ParticipantCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Override
+    @SneakyThrows
+    public byte[] encode(Participant participant) {
+        return objectMapper.writeValueAsBytes(participant);
+    }
+
+    @Override
+    @SneakyThrows
+    public Participant decode(byte[] data) {
+        return objectMapper.readValue(data, Participant.class);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.tcc.codec;
+
+import com.example.tcc.context.Participant;
+
+/**
+ * Wire format of a participant in the participant store. Selected with {@code tcc.participant-codec}.
+ */
+public interface ParticipantCodec {
+
+    byte[] encode(Participant participant);
+
+    Participant decode(byte[] data);
+}
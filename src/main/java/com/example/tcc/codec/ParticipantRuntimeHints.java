@@ -0,0 +1,22 @@
+package com.example.tcc.codec;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.example.tcc.context.Participant;
+import com.example.tcc.remote.RemoteCall;
+import com.example.tcc.remote.RemoteCallResult;
+
+/**
+ * Jackson binding hints for the types the coordinator serializes by hand: the legacy JSON participant
+ * format and the remote participant protocol. Argument types are covered by {@code TccActionAotProcessor}.
+ */
+class ParticipantRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+            Participant.class, RemoteCall.class, RemoteCallResult.class);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.tcc.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "tcc")
+public class TccProperties {
+
+    private Executor executor = new Executor();
+    private TryExecutor tryExecutor = new TryExecutor();
+    private AsyncCommit asyncCommit = new AsyncCommit();
+    private Recovery recovery = new Recovery();
+    private LogWriter logWriter = new LogWriter();
+    private ParticipantStore participantStore = new ParticipantStore();
+    private Remote remote = new Remote();
+    private Admission admission = new Admission();
+    private Partitioning partitioning = new Partitioning();
+
+    @Data
+    public static class Executor {
+        /**
+         * threads running confirm/cancel calls of one ordering group concurrently
+         */
+        private int poolSize = 16;
+        private int queueCapacity = 1024;
+        /**
+         * run the confirms/cancels of local participants sharing one DataSource in a single local transaction
+         */
+        private boolean sharedLocalTransaction = true;
+    }
+
+    @Data
+    public static class TryExecutor {
+        /**
+         * threads running the concurrent tries of {@code TccTryExecutor}
+         */
+        private int poolSize = 16;
+        private int queueCapacity = 1024;
+    }
+
+    @Data
+    public static class AsyncCommit {
+        private int poolSize = 4;
+        /**
+         * max transactions waiting for a background confirm, beyond that the caller confirms inline
+         */
+        private int queueCapacity = 1024;
+        private int maxAttempts = 5;
+        private long initialBackoffMs = 100;
+        private long maxBackoffMs = 5000;
+    }
+
+    @Data
+    public static class Recovery {
+        private boolean enabled = true;
+        private long intervalMs = 10000;
+        private int batchSize = 100;
+        /**
+         * upper bound of batches per run, so one run never scans the whole table
+         */
+        private int maxBatchesPerRun = 10;
+        /**
+         * transactions recovered at the same time
+         */
+        private int concurrency = 4;
+        /**
+         * TRYING transactions older than this are cancelled
+         */
+        private long tryingTimeoutMs = 60000;
+        /**
+         * CONFIRMING/CANCELING transactions that entered their status less than this ago are left to the live path
+         */
+        private long gracePeriodMs = 60000;
+        private long initialBackoffMs = 1000;
+        private long maxBackoffMs = 300000;
+    }
+
+    @Data
+    public static class LogWriter {
+        /**
+         * batch TccLog writes of concurrent transactions, false writes each one through JPA
+         */
+        private boolean groupCommit = true;
+        private int maxBatchSize = 256;
+        /**
+         * how long a flush may wait for more records before committing
+         */
+        private long maxDelayMs = 2;
+        /**
+         * how long a caller waits for the batch holding its record before failing
+         */
+        private long writeTimeoutMs = 10000;
+        /**
+         * keep the TccLog of a young transaction in memory, it is written on its first
+         * confirm/cancel or once it is older than lazyThresholdMs
+         */
+        private boolean lazy = false;
+        private long lazyThresholdMs = 500;
+    }
+
+    @Data
+    public static class ParticipantStore {
+        /**
+         * redis: shared by all coordinator nodes; journal: local memory-mapped files, single node
+         */
+        private String type = "redis";
+        private Redis redis = new Redis();
+        private Journal journal = new Journal();
+    }
+
+    @Data
+    public static class Redis {
+        /**
+         * expiry of a transaction's participant list, must outlive the recovery horizon
+         */
+        private long ttlMs = 24 * 60 * 60 * 1000L;
+    }
+
+    @Data
+    public static class Journal {
+        private String directory = "tcc-journal";
+        private int segmentSize = 64 * 1024 * 1024;
+        /**
+         * msync after every write; without it records survive a JVM crash but not an OS crash
+         */
+        private boolean forceOnWrite = false;
+        /**
+         * the oldest segment is rewritten forward once at most this many transactions keep it alive
+         */
+        private int compactionLiveThreshold = 64;
+    }
+
+    @Data
+    public static class Remote {
+        /**
+         * node name -> base URL of the node, e.g. wallet=http://wallet-service:8080
+         */
+        private Map<String, String> nodes = new HashMap<>();
+        private long connectTimeoutMs = 1000;
+        private long requestTimeoutMs = 5000;
+        /**
+         * serve /tcc/participants so other coordinators can use this node's TCC actions,
+         * requires shared-secret
+         */
+        private boolean participantEndpointEnabled = false;
+        /**
+         * key of the HMAC every remote call is signed with, the same on all nodes
+         */
+        private String sharedSecret = "";
+        /**
+         * signed calls older or newer than this are rejected
+         */
+        private long maxClockSkewMs = 60000;
+        /**
+         * how long a participant node remembers confirmed and cancelled branches, must exceed
+         * the longest time a coordinator may resend a confirm/cancel (its participant store TTL)
+         */
+        private long branchRetentionMs = 7 * 24 * 60 * 60 * 1000L;
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * max global transactions in flight on this node, 0 for no limit
+         */
+        private int maxInFlight = 0;
+        /**
+         * how long a new transaction may wait for a slot, 0 rejects it right away
+         */
+        private long queueTimeoutMs = 0;
+    }
+
+    @Data
+    public static class Partitioning {
+        /**
+         * split recovery across coordinator instances by leasing hash partitions of the txId space,
+         * false recovers every transaction on every instance
+         */
+        private boolean enabled = false;
+        /**
+         * must be the same on every instance
+         */
+        private int partitions = 64;
+        /**
+         * a lease not renewed for this long is taken over, it must exceed the renew interval and clock skew
+         */
+        private long leaseTtlMs = 15000;
+        private long renewIntervalMs = 5000;
+        /**
+         * empty for a random id per start
+         */
+        private String instanceId = "";
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.tcc.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet")
+public class WalletProperties {
+
+    /**
+     * ownerId -> number of sub-accounts, e.g. {@code wallet.shards.merchant-1=8}.
+     * Owners not listed keep a single wallet row.
+     */
+    private Map<String, Integer> shards = new HashMap<>();
+
+    /**
+     * owners whose wallet row ids are kept in memory
+     */
+    private int idCacheSize = 10000;
+
+    private Ledger ledger = new Ledger();
+
+    public int shardCount(String ownerId) {
+        return Math.max(1, shards.getOrDefault(ownerId, 1));
+    }
+
+    @Data
+    public static class Ledger {
+        /**
+         * record every movement as an inserted WalletEntry instead of updating the wallet row
+         */
+        private boolean enabled = false;
+        private long compactionIntervalMs = 5000;
+        /**
+         * owners per compaction run and entries folded per owner and transaction
+         */
+        private int compactionBatchSize = 500;
+        /**
+         * how long a movement waits for another movement of the same owner in the same global
+         * transaction to commit
+         */
+        private long movementLockTimeoutMs = 10000;
+    }
+}
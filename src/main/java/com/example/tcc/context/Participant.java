@@ -2,6 +2,7 @@ package com.example.tcc.context;
 
 import java.io.Serializable;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import lombok.AllArgsConstructor;
@@ -11,6 +12,8 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+// entries written before the binary codec still carry parameterTypes
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class Participant implements Serializable {
     private String beanName;
     private String confirmMethod;
@@ -19,25 +22,25 @@ public class Participant implements Serializable {
     // Add type information to preserve types during serialization/deserialization
     @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
     private Object[] args;
+
+    // Ordering group from TccAction#order
+    private int order;
+
+    // remote node from TccRemoteAction#node, null for a bean of this application
+    private String node;
+
+    // identifies a remote participant's try/confirm/cancel on its node, null for a bean of this application
+    private String branchId;
     
-    // Store parameter types explicitly
-    private Class<?>[] parameterTypes;
-    
-    // Constructor that captures parameter types
     public Participant(String beanName, String confirmMethod, String cancelMethod, Object[] args) {
-        this.beanName = beanName;
-        this.confirmMethod = confirmMethod;
-        this.cancelMethod = cancelMethod;
-        this.args = args;
-        
-        // Capture parameter types
-        if (args != null) {
-            this.parameterTypes = new Class<?>[args.length];
-            for (int i = 0; i < args.length; i++) {
-                if (args[i] != null) {
-                    this.parameterTypes[i] = args[i].getClass();
-                }
-            }
-        }
+        this(beanName, confirmMethod, cancelMethod, args, 0);
+    }
+
+    public Participant(String beanName, String confirmMethod, String cancelMethod, Object[] args, int order) {
+        this(beanName, confirmMethod, cancelMethod, args, order, null);
+    }
+
+    public Participant(String beanName, String confirmMethod, String cancelMethod, Object[] args, int order, String node) {
+        this(beanName, confirmMethod, cancelMethod, args, order, node, null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.example.tcc.context;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the current TCC transaction into tasks of an executor that opts in, e.g.
+ * {@code new ThreadPoolTaskExecutorBuilder().taskDecorator(new TccContextTaskDecorator()).build()}
+ * for an executor whose tasks run tries of the caller's transaction. It is deliberately not a bean:
+ * Boot would apply it to the shared application executor, and every unrelated {@code @Async} task
+ * submitted inside a transaction would register its tries there. Single call sites can use
+ * {@link TccTransactionContextHolder#wrap(Runnable)} instead.
+ */
+public class TccContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return TccTransactionContextHolder.wrap(runnable);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.tcc.context;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * State of one global transaction on the coordinator side. It is not tied to a thread:
+ * tries running concurrently each get a {@link #branch()}, which buffers its own registrations
+ * and shares the transaction's participant list. A participant node serving a remote coordinator
+ * binds a {@link #remoteTry} context instead.
+ */
+public class TccTransactionContext {
+    @Getter
+    private final String txId;
+    // null if the transaction has no deadline
+    @Getter
+    private final Instant deadline;
+    // the transaction's root context, this for the root itself; guards participants
+    @Getter
+    private final TccTransactionContext root;
+    // a try run on a participant node for a remote coordinator, which holds the participant; nothing is registered here
+    @Getter
+    private final boolean remoteTry;
+
+    // participants written to the store, shared by every branch; concurrent branches may be in another order than in the store
+    private final List<Participant> participants;
+    // registered on this branch but not yet written to the participant store
+    private final List<Participant> pending = new ArrayList<>();
+    // set on the root once a try failed for certain, the transaction can then only roll back
+    private volatile boolean rollbackOnly;
+
+    public TccTransactionContext(String txId) {
+        this(txId, null);
+    }
+
+    public TccTransactionContext(String txId, Instant deadline) {
+        this(txId, deadline, false);
+    }
+
+    private TccTransactionContext(String txId, Instant deadline, boolean remoteTry) {
+        this.txId = txId;
+        this.deadline = deadline;
+        this.root = this;
+        this.remoteTry = remoteTry;
+        this.participants = new ArrayList<>();
+    }
+
+    private TccTransactionContext(TccTransactionContext root) {
+        this.txId = root.txId;
+        this.deadline = root.deadline;
+        this.root = root;
+        this.remoteTry = root.remoteTry;
+        this.participants = root.participants;
+    }
+
+    /**
+     * The context a participant node runs a remote coordinator's try in, the try sees the txId
+     * but its {@code @TccAction} is not registered again
+     * @param txId
+     */
+    public static TccTransactionContext remoteTry(String txId) {
+        return new TccTransactionContext(txId, null, true);
+    }
+
+    /**
+     * A context for a try running concurrently with others of the same transaction
+     */
+    public TccTransactionContext branch() {
+        return new TccTransactionContext(root);
+    }
+
+    public boolean isExpired() {
+        return deadline != null && Instant.now().isAfter(deadline);
+    }
+
+    /**
+     * Make the transaction roll back even if the caller swallows the failure of one of its tries
+     */
+    public void setRollbackOnly() {
+        root.rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return root.rollbackOnly;
+    }
+
+    public synchronized void addParticipant(Participant participant) {
+        pending.add(participant);
+    }
+
+    /**
+     * Participants written to the store so far, each branch's participants in registration order
+     */
+    public List<Participant> getParticipants() {
+        synchronized (root) {
+            return new ArrayList<>(participants);
+        }
+    }
+
+    /**
+     * Take the participants of this branch that still have to be written to the store
+     */
+    public synchronized List<Participant> drainPending() {
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<Participant> drained = new ArrayList<>(pending);
+        pending.clear();
+        return drained;
+    }
+
+    /**
+     * Record participants just written to the store, the caller holds the root's lock
+     */
+    public void addFlushed(List<Participant> flushed) {
+        participants.addAll(flushed);
+    }
+
+    /**
+     * Forget the participants that were never written to the store: their try's local
+     * transaction did not commit, so there is nothing to cancel for them
+     */
+    public synchronized void discardPending() {
+        pending.clear();
+    }
+}
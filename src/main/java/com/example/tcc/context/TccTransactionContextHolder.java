@@ -1,17 +1,79 @@
 package com.example.tcc.context;
 
+import java.util.concurrent.Callable;
+
+/**
+ * Binds the current global transaction to the running thread. The context itself is a plain object,
+ * so it can be carried to another thread with {@link #wrap(Runnable)} or bound for the extent of a
+ * call with {@link #runWith}/{@link #callWith}, which restore the previous binding afterwards and so
+ * never leak a transaction into the next task or request served by a pooled or virtual thread.
+ */
 public class TccTransactionContextHolder {
-    private static final ThreadLocal<String> CONTEXT = new ThreadLocal<>();
+    private static final ThreadLocal<TccTransactionContext> CONTEXT = new ThreadLocal<>();
 
-    public static void setContext(String context) {
+    public static void setContext(TccTransactionContext context) {
         CONTEXT.set(context);
     }
 
-    public static String getContext() {
+    public static TccTransactionContext getContext() {
         return CONTEXT.get();
     }
 
+    public static String getTxId() {
+        TccTransactionContext context = CONTEXT.get();
+        return context == null ? null : context.getTxId();
+    }
+
     public static void clearContext() {
         CONTEXT.remove();
     }
+
+    /**
+     * Run a task with the given context bound, null runs it outside any transaction
+     * @param context
+     * @param task
+     */
+    public static void runWith(TccTransactionContext context, Runnable task) {
+        TccTransactionContext previous = CONTEXT.get();
+        bind(context);
+        try {
+            task.run();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * Call a task with the given context bound, null calls it outside any transaction
+     * @param context
+     * @param task
+     * @return the task's result
+     */
+    public static <T> T callWith(TccTransactionContext context, Callable<T> task) throws Exception {
+        TccTransactionContext previous = CONTEXT.get();
+        bind(context);
+        try {
+            return task.call();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * Capture the current context so the task sees it on whichever thread runs it
+     * @param task
+     * @return the task itself if there is no current context
+     */
+    public static Runnable wrap(Runnable task) {
+        TccTransactionContext context = CONTEXT.get();
+        return context == null ? task : () -> runWith(context, task);
+    }
+
+    private static void bind(TccTransactionContext context) {
+        if (context == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(context);
+        }
+    }
 }
@@ -1,13 +1,24 @@
 package com.example.tcc.controller;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.tcc.dto.BatchPaymentResult;
+import com.example.tcc.dto.Transfer;
+import com.example.tcc.dto.WalletBalance;
+import com.example.tcc.exception.TccParticipantException;
+import com.example.tcc.exception.TccRejectedException;
 import com.example.tcc.service.PaymentService;
+import com.example.tcc.service.WalletService;
 
 
 @RestController
@@ -15,6 +26,8 @@ public class TestController {
     
     @Autowired
     private PaymentService paymentService;
+    @Autowired
+    private WalletService walletService;
 
     @PostMapping("/test")
     public String postMethodName(@RequestParam String userId,
@@ -28,6 +41,26 @@ public class TestController {
             return "Error processing payment: " + e.getMessage();
         }
     }
-    
-    
+
+    @PostMapping("/payments/batch")
+    public BatchPaymentResult processPayments(@RequestBody List<Transfer> transfers) {
+        try {
+            return paymentService.processPayments(transfers);
+        } catch (TccParticipantException e) {
+            // a failed confirm is completed by recovery, any other failure ends the batch cancelled
+            String status = "confirm".equals(e.getPhase()) ? "PENDING" : "FAILED";
+            return BatchPaymentResult.of(e.getTxId(), status, transfers, e.getMessage());
+        } catch (TccRejectedException e) {
+            // shed before anything was tried, the client may retry the whole batch
+            return BatchPaymentResult.of(null, "THROTTLED", transfers, e.getMessage());
+        } catch (Exception e) {
+            return BatchPaymentResult.of(null, "FAILED", transfers, e.getMessage());
+        }
+    }
+
+    @GetMapping("/wallets/{ownerId}")
+    public ResponseEntity<WalletBalance> getBalance(@PathVariable String ownerId) {
+        WalletBalance balance = walletService.getBalance(ownerId);
+        return balance == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(balance);
+    }
 }
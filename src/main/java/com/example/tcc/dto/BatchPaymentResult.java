@@ -0,0 +1,31 @@
+package com.example.tcc.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch payment. The valid transfers of a batch share one global transaction,
+ * so they are all COMPLETED, all PENDING, all FAILED or, when the node is overloaded, all THROTTLED.
+ */
+public record BatchPaymentResult(String txId, String status, List<TransferResult> results) {
+
+    /**
+     * Every valid transfer gets the same status, invalid ones are REJECTED
+     * @param txId
+     * @param status
+     * @param transfers
+     * @param message
+     * @return BatchPaymentResult
+     */
+    public static BatchPaymentResult of(String txId, String status, List<Transfer> transfers, String message) {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            Transfer transfer = transfers.get(i);
+            String invalid = transfer.validate();
+            results.add(invalid == null
+                ? new TransferResult(i, transfer, status, message)
+                : new TransferResult(i, transfer, "REJECTED", invalid));
+        }
+        return new BatchPaymentResult(txId, status, results);
+    }
+}
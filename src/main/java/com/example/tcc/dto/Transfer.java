@@ -0,0 +1,25 @@
+package com.example.tcc.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One payment of a batch, from a user to a merchant
+ */
+public record Transfer(String userId, String merchantId, BigDecimal amount) {
+
+    /**
+     * @return why the transfer cannot be part of a batch, null if it can
+     */
+    public String validate() {
+        if (userId == null || userId.isBlank() || merchantId == null || merchantId.isBlank()) {
+            return "userId and merchantId are required";
+        }
+        if (userId.equals(merchantId)) {
+            return "userId and merchantId must differ";
+        }
+        if (amount == null || amount.signum() <= 0) {
+            return "amount must be positive";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.tcc.dto;
+
+/**
+ * Outcome of one transfer of a batch.
+ * Status is COMPLETED, PENDING (confirmed later by recovery), REJECTED (invalid, not attempted) or FAILED.
+ */
+public record TransferResult(int index, Transfer transfer, String status, String message) {
+}
@@ -0,0 +1,9 @@
+package com.example.tcc.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance of an owner summed over all of its shards
+ */
+public record WalletBalance(String ownerId, BigDecimal balance, BigDecimal frozenBalance, long shards) {
+}
@@ -0,0 +1,31 @@
+package com.example.tcc.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Participant-node record of one remote participant, written in the same local transaction
+ * as the try, confirm or cancel it records, so each of them is applied at most once
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_tcc_branch_status_changed", columnList = "status, statusTime"))
+public class TccBranch {
+
+    @Id
+    private String branchId;
+
+    private String txId;
+
+    // TRIED, CONFIRMED or CANCELED; CANCELED without a try blocks a late try from ever applying
+    private String status;
+
+    private LocalDateTime createdTime;
+
+    private LocalDateTime statusTime;
+}
@@ -0,0 +1,20 @@
+package com.example.tcc.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * A coordinator instance taking part in partition leasing, alive while its heartbeat is fresh
+ */
+@Data
+@Entity
+public class TccCoordinatorInstance {
+
+    @Id
+    private String instanceId;
+
+    private LocalDateTime heartbeatTime;
+}
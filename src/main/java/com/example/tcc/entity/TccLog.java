@@ -4,10 +4,13 @@ import java.time.LocalDateTime;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_tcc_log_status_changed", columnList = "status, statusTime"))
 public class TccLog {
     
     @Id
@@ -16,4 +19,27 @@ public class TccLog {
     private String status;
 
     private LocalDateTime createdTime;
-}
\ No newline at end of file
+
+    // when the row entered its current status, recovery grace periods count from here; null on older rows
+    private LocalDateTime statusTime;
+
+    // recovery attempts so far, drives the exponential backoff
+    private Integer retryCount;
+
+    // the recovery engine leaves the row alone until then
+    private LocalDateTime nextRetryTime;
+
+    // comma separated indexes of participants already confirmed/cancelled, written when a phase partially fails
+    private String completedParticipants;
+
+    // non-negative hash of the txId, partition = partitionKey mod tcc.partitioning.partitions; null on older rows
+    private Integer partitionKey;
+
+    /**
+     * @param txId
+     * @return the partitionKey of a transaction
+     */
+    public static int partitionKey(String txId) {
+        return txId.hashCode() & Integer.MAX_VALUE;
+    }
+}
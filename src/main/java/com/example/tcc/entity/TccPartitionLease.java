@@ -0,0 +1,24 @@
+package com.example.tcc.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * Lease of one recovery partition, a coordinator instance only recovers the partitions it holds
+ */
+@Data
+@Entity
+public class TccPartitionLease {
+
+    @Id
+    private Integer partitionNo;
+
+    // instanceId of the holder, null if the partition is free
+    private String owner;
+
+    // the lease is free to take once this has passed
+    private LocalDateTime expiresAt;
+}
@@ -7,19 +7,26 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 
 @Data
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_wallet_owner_shard", columnNames = { "ownerId", "shardNo" }))
 public class Wallet {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String ownerId;
 
+    // 0 for a regular wallet, 0..K-1 for the sub-accounts of a sharded one
+    @Column(nullable = false)
+    private Integer shardNo = 0;
+
     @Column(nullable = false)
     private BigDecimal balance;
 
@@ -0,0 +1,56 @@
+package com.example.tcc.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * One balance movement of a wallet in ledger mode. Entries are only inserted; the compactor
+ * folds their deltas into the owner's wallet row and flags them, the row stays as audit trail.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_wallet_entry_participant", columnNames = { "txId", "ownerId", "type", "seq" }),
+    indexes = @Index(name = "idx_wallet_entry_owner_folded", columnList = "ownerId, folded"))
+public class WalletEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private String txId;
+
+    // FREEZE, DEBIT, RELEASE, PENDING_CREDIT, CREDIT, CANCEL_CREDIT
+    @Column(nullable = false)
+    private String type;
+
+    // 0 for the first entry of this type of the owner in the transaction, 1 for a second try
+    // of the same owner, and so on
+    @Column(nullable = false)
+    private int seq;
+
+    @Column(nullable = false)
+    private BigDecimal balanceDelta;
+
+    @Column(nullable = false)
+    private BigDecimal frozenDelta;
+
+    // true once the deltas are part of the wallet row
+    @Column(nullable = false)
+    private boolean folded;
+
+    private LocalDateTime createdTime;
+}
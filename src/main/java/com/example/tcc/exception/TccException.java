@@ -0,0 +1,15 @@
+package com.example.tcc.exception;
+
+/**
+ * Base exception of the TCC coordinator
+ */
+public class TccException extends RuntimeException {
+
+    public TccException(String message) {
+        super(message);
+    }
+
+    public TccException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
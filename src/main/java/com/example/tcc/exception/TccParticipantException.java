@@ -0,0 +1,29 @@
+package com.example.tcc.exception;
+
+import java.util.List;
+
+import com.example.tcc.context.Participant;
+
+import lombok.Getter;
+
+/**
+ * Aggregates every participant that failed in one confirm/cancel phase,
+ * each failure is attached as a suppressed exception.
+ */
+@Getter
+public class TccParticipantException extends TccException {
+    private final String txId;
+    private final String phase;
+    private final List<Participant> failedParticipants;
+
+    public TccParticipantException(String txId, String phase, List<Participant> failedParticipants, List<Throwable> causes) {
+        super(failedParticipants.size() + " participant(s) failed to " + phase + " for transaction " + txId,
+            causes.isEmpty() ? null : causes.get(0));
+        this.txId = txId;
+        this.phase = phase;
+        this.failedParticipants = failedParticipants;
+        for (int i = 1; i < causes.size(); i++) {
+            addSuppressed(causes.get(i));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.tcc.exception;
+
+import lombok.Getter;
+
+/**
+ * A new global transaction was shed because too many are in flight
+ */
+@Getter
+public class TccRejectedException extends TccException {
+
+    private final String method;
+
+    public TccRejectedException(String method, String message) {
+        super(message);
+        this.method = method;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.tcc.exception;
+
+import lombok.Getter;
+
+/**
+ * A call to a remote participant failed
+ */
+@Getter
+public class TccRemoteException extends TccException {
+    private final String node;
+    // true if the request may have been applied, e.g. a timeout, false if the node rejected it
+    private final boolean outcomeUnknown;
+
+    public TccRemoteException(String node, String message, boolean outcomeUnknown) {
+        super(message);
+        this.node = node;
+        this.outcomeUnknown = outcomeUnknown;
+    }
+
+    public TccRemoteException(String node, String message, Throwable cause) {
+        super(message, cause);
+        this.node = node;
+        this.outcomeUnknown = true;
+    }
+}
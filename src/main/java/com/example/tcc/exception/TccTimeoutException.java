@@ -0,0 +1,21 @@
+package com.example.tcc.exception;
+
+import java.time.Instant;
+
+import lombok.Getter;
+
+/**
+ * The global transaction passed its deadline before a try started or before it committed
+ */
+@Getter
+public class TccTimeoutException extends TccException {
+
+    private final String txId;
+    private final Instant deadline;
+
+    public TccTimeoutException(String txId, Instant deadline) {
+        super("Transaction " + txId + " passed its deadline " + deadline);
+        this.txId = txId;
+        this.deadline = deadline;
+    }
+}
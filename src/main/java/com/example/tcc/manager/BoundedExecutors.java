@@ -0,0 +1,31 @@
+package com.example.tcc.manager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Pools of the coordinator that fan work out from a calling thread which waits for the result
+ */
+final class BoundedExecutors {
+
+    private BoundedExecutors() {
+    }
+
+    /**
+     * A fixed pool with a bounded queue, idle threads time out. A saturated pool degrades to running
+     * the task on the submitting thread, so callers slow down instead of failing.
+     * @param threadNamePrefix
+     * @param poolSize
+     * @param queueCapacity
+     */
+    static ThreadPoolExecutor callerRuns(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(threadNamePrefix),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
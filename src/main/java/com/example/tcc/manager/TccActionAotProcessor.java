@@ -0,0 +1,86 @@
+package com.example.tcc.manager;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import com.example.tcc.anno.TccAction;
+import com.example.tcc.anno.TccRemoteAction;
+
+/**
+ * Build-time counterpart of {@link TccActionRegistry}: scans the bean definitions during the AOT
+ * build and registers the reflection hints a native image needs to bind and call the TCC methods.
+ *
+ * <ul>
+ * <li>try/confirm/cancel methods of every {@link TccAction} are registered for invocation, the
+ * registry turns them into method handles at startup</li>
+ * <li>parameter types without a dedicated binary encoding get Jackson binding hints, they travel
+ * as JSON in the participant codec and in remote calls</li>
+ * <li>parameter types of {@link TccRemoteAction} methods get binding hints for the same reason</li>
+ * </ul>
+ *
+ * A confirm/cancel method that does not exist fails the build instead of the first startup.
+ */
+class TccActionAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        Set<Method> methods = new LinkedHashSet<>();
+        Set<Class<?>> argumentTypes = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanNamesForType(Object.class, false, false)) {
+            if (ScopedProxyUtils.isScopedTarget(beanName)) {
+                continue;
+            }
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType == null) {
+                continue;
+            }
+            Class<?> userClass = ClassUtils.getUserClass(beanType);
+            selectMethods(userClass, TccAction.class).forEach((tryMethod, action) -> {
+                methods.add(tryMethod);
+                methods.add(TccActionRegistry.findPhaseMethod(userClass, tryMethod, action.confirmMethod()));
+                methods.add(TccActionRegistry.findPhaseMethod(userClass, tryMethod, action.cancelMethod()));
+                addArgumentTypes(tryMethod, argumentTypes);
+            });
+            selectMethods(userClass, TccRemoteAction.class).keySet()
+                .forEach(method -> addArgumentTypes(method, argumentTypes));
+        }
+        if (methods.isEmpty() && argumentTypes.isEmpty()) {
+            return null;
+        }
+        return (generationContext, code) -> {
+            ReflectionHints reflection = generationContext.getRuntimeHints().reflection();
+            methods.forEach(method -> reflection.registerMethod(method, ExecutableMode.INVOKE));
+            new BindingReflectionHintsRegistrar().registerReflectionHints(reflection, argumentTypes.toArray(Class<?>[]::new));
+        };
+    }
+
+    private static <A extends Annotation> Map<Method, A> selectMethods(Class<?> userClass, Class<A> annotation) {
+        return MethodIntrospector.selectMethods(userClass,
+            (MethodIntrospector.MetadataLookup<A>) method -> AnnotatedElementUtils.findMergedAnnotation(method, annotation));
+    }
+
+    /**
+     * Types the binary codec writes natively never need hints, the rest fall back to JSON
+     */
+    private static void addArgumentTypes(Method method, Set<Class<?>> argumentTypes) {
+        for (Class<?> type : method.getParameterTypes()) {
+            if (!type.isPrimitive() && !type.getName().startsWith("java.")) {
+                argumentTypes.add(type);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.tcc.manager;
+
+import java.lang.reflect.Method;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One {@code @TccAction} method as discovered at startup
+ */
+@Getter
+@AllArgsConstructor
+public class TccActionDefinition {
+    /**
+     * stable across nodes and restarts, derived from {@link #key(String, String, String, int)}
+     */
+    private final int id;
+    private final String beanName;
+    private final Method tryMethod;
+    private final String confirmMethod;
+    private final String cancelMethod;
+    private final int order;
+
+    public static String key(String beanName, String confirmMethod, String cancelMethod, int order) {
+        return beanName + "#" + confirmMethod + "#" + cancelMethod + "#" + order;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.tcc.manager;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.example.tcc.anno.TccAction;
+import com.example.tcc.context.Participant;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scans every {@link TccAction} bean once at startup and binds its confirm/cancel
+ * methods to method handles, so commit/rollback never touch reflection.
+ */
+@Slf4j
+@Component
+public class TccActionRegistry implements SmartInitializingSingleton {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object[].class);
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    // beanName -> (methodName -> invoker), read-only once the context is refreshed
+    private final Map<String, Map<String, TccMethodInvoker>> invokers = new HashMap<>();
+    // beanName -> (try methodName -> invoker), for tries requested by a remote coordinator
+    private final Map<String, Map<String, TccMethodInvoker>> tryInvokers = new HashMap<>();
+    private final Map<Class<?>, String> beanNames = new HashMap<>();
+    private final Map<Integer, TccActionDefinition> actionsById = new HashMap<>();
+    private final Map<String, TccActionDefinition> actionsByKey = new HashMap<>();
+    private final TransactionAttributeSource transactionAttributeSource = new AnnotationTransactionAttributeSource();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getBeanNamesForType(Object.class, false, false)) {
+            if (ScopedProxyUtils.isScopedTarget(beanName)) {
+                continue;
+            }
+            Class<?> beanType = beanFactory.getType(beanName);
+            if (beanType == null) {
+                continue;
+            }
+            Class<?> userClass = ClassUtils.getUserClass(beanType);
+            Map<Method, TccAction> actions = MethodIntrospector.selectMethods(userClass,
+                (MethodIntrospector.MetadataLookup<TccAction>) method ->
+                    AnnotatedElementUtils.findMergedAnnotation(method, TccAction.class));
+            if (actions.isEmpty()) {
+                continue;
+            }
+            Object bean = beanFactory.getBean(beanName);
+            beanNames.put(userClass, beanName);
+            actions.forEach((tryMethod, action) -> register(beanName, bean, userClass, tryMethod, action));
+        }
+        log.info("Registered TCC invokers for beans: {}", invokers.keySet());
+    }
+
+    /**
+     * Resolve a pre-bound confirm/cancel invoker
+     * @param beanName
+     * @param methodName
+     * @return TccMethodInvoker
+     */
+    public TccMethodInvoker getInvoker(String beanName, String methodName) {
+        Map<String, TccMethodInvoker> beanInvokers = invokers.get(beanName);
+        TccMethodInvoker invoker = beanInvokers == null ? null : beanInvokers.get(methodName);
+        if (invoker == null) {
+            throw new IllegalStateException("No TCC invoker registered for " + beanName + "." + methodName);
+        }
+        return invoker;
+    }
+
+    /**
+     * Resolve a try method of this node, bound to the proxied bean
+     * @param beanName
+     * @param methodName
+     * @return TccMethodInvoker
+     */
+    public TccMethodInvoker getTryInvoker(String beanName, String methodName) {
+        Map<String, TccMethodInvoker> beanInvokers = tryInvokers.get(beanName);
+        TccMethodInvoker invoker = beanInvokers == null ? null : beanInvokers.get(methodName);
+        if (invoker == null) {
+            throw new IllegalStateException("No TCC try method registered for " + beanName + "." + methodName);
+        }
+        return invoker;
+    }
+
+    /**
+     * @param id
+     * @return the action with the given id, null if unknown on this node
+     */
+    public TccActionDefinition getAction(int id) {
+        return actionsById.get(id);
+    }
+
+    /**
+     * @param participant
+     * @return the action the participant was registered for, null if it is not a local action
+     */
+    public TccActionDefinition findAction(Participant participant) {
+        return actionsByKey.get(TccActionDefinition.key(participant.getBeanName(), participant.getConfirmMethod(),
+            participant.getCancelMethod(), participant.getOrder()));
+    }
+
+    /**
+     * Bean name of a registered TCC bean, by its user (unproxied) class
+     * @param userClass
+     * @return bean name, or null if the class declares no TccAction
+     */
+    public String getBeanName(Class<?> userClass) {
+        return beanNames.get(userClass);
+    }
+
+    private void register(String beanName, Object bean, Class<?> userClass, Method tryMethod, TccAction action) {
+        registerDefinition(beanName, tryMethod, action);
+        Map<String, TccMethodInvoker> beanTries = tryInvokers.computeIfAbsent(beanName, k -> new HashMap<>());
+        if (beanTries.containsKey(tryMethod.getName())) {
+            throw new IllegalStateException("Ambiguous TCC try method " + userClass.getName() + "." + tryMethod.getName()
+                + ": overloaded try methods are not supported");
+        }
+        beanTries.put(tryMethod.getName(), new TccMethodInvoker(beanName, tryMethod, bind(bean, tryMethod)));
+        Map<String, TccMethodInvoker> beanInvokers = invokers.computeIfAbsent(beanName, k -> new HashMap<>());
+        for (String methodName : new String[] { action.confirmMethod(), action.cancelMethod() }) {
+            Method method = findPhaseMethod(userClass, tryMethod, methodName);
+            TccMethodInvoker existing = beanInvokers.get(methodName);
+            if (existing != null) {
+                if (!existing.getMethod().equals(method)) {
+                    throw new IllegalStateException("Ambiguous TCC method " + userClass.getName() + "." + methodName
+                        + ": overloaded confirm/cancel methods are not supported");
+                }
+                continue;
+            }
+            PlatformTransactionManager transactionManager = localTransactionManager(userClass, method);
+            Object target = transactionManager == null ? null : AopProxyUtils.getSingletonTarget(bean);
+            beanInvokers.put(methodName, target == null
+                ? new TccMethodInvoker(beanName, method, bind(bean, method))
+                : new TccMethodInvoker(beanName, method, bind(bean, method), bind(target, method), transactionManager));
+        }
+    }
+
+    /**
+     * The confirm/cancel method a try method declares, it takes the same parameters as the try.
+     * Also resolved by {@link TccActionAotProcessor} at build time.
+     * @param userClass
+     * @param tryMethod
+     * @param methodName
+     * @return Method
+     */
+    static Method findPhaseMethod(Class<?> userClass, Method tryMethod, String methodName) {
+        Method method = ReflectionUtils.findMethod(userClass, methodName, tryMethod.getParameterTypes());
+        if (method == null) {
+            throw new IllegalStateException("TccAction " + userClass.getName() + "." + tryMethod.getName()
+                + " declares '" + methodName + "' but no method with parameters "
+                + Arrays.toString(tryMethod.getParameterTypes()) + " exists");
+        }
+        return method;
+    }
+
+    /**
+     * The transaction manager a confirm/cancel method runs its own local transaction with,
+     * if that transaction could just as well be shared with other participants: a plain
+     * REQUIRED/REQUIRES_NEW read-write transaction on a single resource such as one DataSource
+     * @return the transaction manager, null if the method must keep running through its proxy alone
+     */
+    private PlatformTransactionManager localTransactionManager(Class<?> userClass, Method method) {
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(method, userClass);
+        if (attribute == null || attribute.isReadOnly()
+            || (attribute.getPropagationBehavior() != TransactionDefinition.PROPAGATION_REQUIRED
+                && attribute.getPropagationBehavior() != TransactionDefinition.PROPAGATION_REQUIRES_NEW)) {
+            return null;
+        }
+        PlatformTransactionManager transactionManager = StringUtils.hasText(attribute.getQualifier())
+            ? beanFactory.getBean(attribute.getQualifier(), PlatformTransactionManager.class)
+            : beanFactory.getBeanProvider(PlatformTransactionManager.class).getIfUnique();
+        return transactionManager instanceof ResourceTransactionManager ? transactionManager : null;
+    }
+
+    private void registerDefinition(String beanName, Method tryMethod, TccAction action) {
+        String key = TccActionDefinition.key(beanName, action.confirmMethod(), action.cancelMethod(), action.order());
+        if (actionsByKey.containsKey(key)) {
+            // same confirm/cancel pair, participants of both try methods are indistinguishable
+            return;
+        }
+        TccActionDefinition definition = new TccActionDefinition(key.hashCode(), beanName, tryMethod,
+            action.confirmMethod(), action.cancelMethod(), action.order());
+        TccActionDefinition clash = actionsById.putIfAbsent(definition.getId(), definition);
+        if (clash != null) {
+            throw new IllegalStateException("TCC action id collision between " + key + " and "
+                + TccActionDefinition.key(clash.getBeanName(), clash.getConfirmMethod(), clash.getCancelMethod(), clash.getOrder()));
+        }
+        actionsByKey.put(key, definition);
+    }
+
+    private MethodHandle bind(Object bean, Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            throw new IllegalStateException("TCC try/confirm/cancel method must be public: " + method);
+        }
+        // invoke through the proxy so @Transactional and friends still apply
+        Method invocable = AopUtils.selectInvocableMethod(method, bean.getClass());
+        try {
+            return MethodHandles.publicLookup().unreflect(invocable)
+                .bindTo(bean)
+                .asSpreader(Object[].class, invocable.getParameterCount())
+                .asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot bind TCC method " + method, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.tcc.manager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.exception.TccRejectedException;
+import com.example.tcc.metrics.TccMetrics;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds the global transactions in flight on this node, per method ({@code @TccGlobalTransaction(maxInFlight)})
+ * and in total ({@code tcc.admission.max-in-flight}). A transaction over a limit waits for a slot at most
+ * {@code tcc.admission.queue-timeout-ms}, in arrival order, and is shed after that, so an overloaded
+ * database sees a bounded number of transactions freezing funds instead of an ever-growing pile.
+ * Rejections are counted as {@code tcc.admission.rejected}.
+ */
+@Slf4j
+@Component
+public class TccAdmissionController {
+
+    /**
+     * A slot held by one transaction, closing it twice releases it once
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private TccMetrics metrics;
+
+    private Semaphore global;
+    private final Map<String, Semaphore> perMethod = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int maxInFlight = properties.getAdmission().getMaxInFlight();
+        if (maxInFlight > 0) {
+            global = new Semaphore(maxInFlight, true);
+        }
+    }
+
+    /**
+     * Take a slot for a new transaction of a method
+     * @param method the annotated method, identifies its own limit
+     * @param maxInFlight the method's own limit, 0 for none
+     * @return Permit to close once the transaction has committed or rolled back
+     * @throws TccRejectedException if no slot freed up within the queue timeout
+     */
+    public Permit acquire(String method, int maxInFlight) {
+        if (maxInFlight <= 0 && global == null) {
+            return UNLIMITED;
+        }
+        Semaphore own = maxInFlight > 0 ? perMethod.computeIfAbsent(method, k -> new Semaphore(maxInFlight, true)) : null;
+        if (own != null && !tryAcquire(own)) {
+            throw reject(method, "method", maxInFlight);
+        }
+        if (global != null && !tryAcquire(global)) {
+            if (own != null) {
+                own.release();
+            }
+            throw reject(method, "global", properties.getAdmission().getMaxInFlight());
+        }
+        return new Permit() {
+            private boolean closed;
+
+            @Override
+            public synchronized void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (global != null) {
+                    global.release();
+                }
+                if (own != null) {
+                    own.release();
+                }
+            }
+        };
+    }
+
+    private boolean tryAcquire(Semaphore semaphore) {
+        long timeoutMs = properties.getAdmission().getQueueTimeoutMs();
+        if (timeoutMs <= 0) {
+            return semaphore.tryAcquire();
+        }
+        try {
+            return semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private TccRejectedException reject(String method, String limit, int maxInFlight) {
+        metrics.rejected(method, limit);
+        log.warn("Rejected transaction of {}: {} limit of {} in-flight transactions reached", method, limit, maxInFlight);
+        return new TccRejectedException(method, "Too many transactions in flight for " + method
+            + " (" + limit + " limit " + maxInFlight + ")");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.tcc.manager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+import com.example.tcc.repository.TccLogRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background confirm pipeline for {@code @TccGlobalTransaction(asyncCommit = true)}.
+ * At most {@code queueCapacity} transactions are pending at once (queued or waiting for a retry),
+ * when it is full the caller confirms inline, which throttles producers to the confirm rate.
+ *
+ * <p>Before its first attempt the committer leases the transaction from recovery for one grace
+ * period, with the same nextRetryTime guard recovery claims rows with, so the two never confirm
+ * the same transaction at once. Attempts only start in the first half of the lease.
+ */
+@Slf4j
+@Component
+public class TccAsyncCommitter {
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @Lazy
+    @Autowired
+    private TccTransactionManager transactionManager;
+
+    private Semaphore permits;
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    public void init() {
+        TccProperties.AsyncCommit config = properties.getAsyncCommit();
+        permits = new Semaphore(config.getQueueCapacity());
+        // bounded by the permits, so the queue itself never grows past queueCapacity
+        workers = new ThreadPoolExecutor(config.getPoolSize(), config.getPoolSize(), 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new CustomizableThreadFactory("tcc-async-commit-"));
+        workers.allowCoreThreadTimeOut(true);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("tcc-async-retry-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * Confirm a transaction already in CONFIRMING status in the background
+     * @param txId
+     * @param participants all participants of the transaction in registration order
+     */
+    public void submit(String txId, List<Participant> participants) {
+        if (!permits.tryAcquire()) {
+            log.warn("Async commit queue is full, confirming transaction {} inline", txId);
+            transactionManager.confirmParticipants(txId, participants, false);
+            return;
+        }
+        workers.execute(() -> lease(txId, participants));
+    }
+
+    private void lease(String txId, List<Participant> participants) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(Duration.ofMillis(properties.getRecovery().getGracePeriodMs()));
+        long leasedAt = System.nanoTime();
+        if (tccLogRepository.lease(txId, "CONFIRMING", now, until) == 0) {
+            log.warn("Transaction {} is already being recovered, skipping async confirm", txId);
+            permits.release();
+            return;
+        }
+        attempt(txId, participants, 1, leasedAt);
+    }
+
+    /**
+     * @param leasedAt when the transaction was leased from recovery, nanoTime
+     */
+    private void attempt(String txId, List<Participant> participants, int attempt, long leasedAt) {
+        TccProperties.AsyncCommit config = properties.getAsyncCommit();
+        // the second half of the lease is left for the last attempt to finish in
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - leasedAt);
+        if (elapsedMs >= properties.getRecovery().getGracePeriodMs() / 2) {
+            log.warn("Async confirm of transaction {} waited {} ms, leaving it to recovery", txId, elapsedMs);
+            permits.release();
+            return;
+        }
+        try {
+            transactionManager.confirmParticipants(txId, participants, attempt > 1);
+            permits.release();
+        } catch (Exception e) {
+            if (attempt >= config.getMaxAttempts()) {
+                // stays in CONFIRMING, the recovery engine picks it up once the lease expires
+                log.error("Giving up async confirm of transaction {} after {} attempts", txId, attempt, e);
+                permits.release();
+                return;
+            }
+            long backoff = Math.min(config.getMaxBackoffMs(), config.getInitialBackoffMs() << (attempt - 1));
+            log.warn("Async confirm of transaction {} failed (attempt {}), retrying in {} ms", txId, attempt, backoff);
+            retryScheduler.schedule(() -> workers.execute(() -> attempt(txId, participants, attempt + 1, leasedAt)), backoff, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.tcc.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+import com.example.tcc.metrics.TccMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fast path of a confirm/cancel phase whose participants are all local and whose confirm/cancel
+ * methods each run in a local transaction on the same resource, e.g. both wallet legs of a payment.
+ * Instead of one REQUIRES_NEW transaction per participant, every call runs behind its bean's proxy
+ * inside a single transaction: one connection, one commit.
+ *
+ * <p>The shared transaction is all or nothing. If any call fails it rolls back and the caller runs
+ * the phase again the usual way, one transaction per participant, so a failure is still reported
+ * and retried per participant.
+ */
+@Slf4j
+@Component
+public class TccLocalTransactionPhase {
+
+    @Autowired
+    private TccActionRegistry actionRegistry;
+    @Autowired
+    private TccMetrics metrics;
+    @Autowired
+    private TccProperties properties;
+
+    private final Map<PlatformTransactionManager, TransactionTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Run a phase in one local transaction if its participants allow it
+     * @param txId
+     * @param phase confirm or cancel
+     * @param participants the participants of the phase in registration order
+     * @return true if every participant completed, false if the phase must run the usual way
+     */
+    public boolean run(String txId, String phase, List<Participant> participants) {
+        if (!properties.getExecutor().isSharedLocalTransaction() || participants.size() < 2) {
+            return false;
+        }
+        boolean confirm = "confirm".equals(phase);
+        List<TccMethodInvoker> invokers = new ArrayList<>(participants.size());
+        Object resource = null;
+        for (Participant p : participants) {
+            if (p.getNode() != null) {
+                return false;
+            }
+            TccMethodInvoker invoker = actionRegistry.getInvoker(p.getBeanName(), confirm ? p.getConfirmMethod() : p.getCancelMethod());
+            if (invoker.getTransactionManager() == null) {
+                return false;
+            }
+            Object invokerResource = ((ResourceTransactionManager) invoker.getTransactionManager()).getResourceFactory();
+            if (resource != null && resource != invokerResource) {
+                return false;
+            }
+            resource = invokerResource;
+            invokers.add(invoker);
+        }
+
+        List<Integer> sequence = sequence(participants, !confirm);
+        try {
+            transactionTemplate(invokers.get(0).getTransactionManager()).executeWithoutResult(status -> {
+                for (int i : sequence) {
+                    Participant p = participants.get(i);
+                    TccMethodInvoker invoker = invokers.get(i);
+                    try {
+                        metrics.timeParticipant(txId, phase, p.getBeanName(), invoker.getMethodName(),
+                            () -> invoker.invokeInTransaction(p.getArgs()));
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            log.debug("Ran {} of {} participants in one local transaction for transaction {}", phase, participants.size(), txId);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Shared local {} failed for transaction {}, running participants one by one", phase, txId, e);
+            return false;
+        }
+    }
+
+    /**
+     * The order {@link TccParticipantExecutor} would run the phase in, one call after another:
+     * ordering groups ascending for confirm; for cancel descending, members in reverse
+     */
+    private static List<Integer> sequence(List<Participant> participants, boolean reverse) {
+        List<Integer> sequence = new ArrayList<>(participants.size());
+        for (int i = 0; i < participants.size(); i++) {
+            sequence.add(i);
+        }
+        if (reverse) {
+            Collections.reverse(sequence);
+            sequence.sort(Comparator.comparingInt((Integer i) -> participants.get(i).getOrder()).reversed());
+        } else {
+            sequence.sort(Comparator.comparingInt(i -> participants.get(i).getOrder()));
+        }
+        return sequence;
+    }
+
+    private TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return templates.computeIfAbsent(transactionManager, tm -> {
+            TransactionTemplate template = new TransactionTemplate(tm);
+            // the coordinator may be called inside a caller's transaction, the phase commits on its own
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            return template;
+        });
+    }
+}
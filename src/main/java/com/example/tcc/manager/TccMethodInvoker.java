@@ -0,0 +1,52 @@
+package com.example.tcc.manager;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import lombok.Getter;
+
+/**
+ * Pre-resolved confirm/cancel target, bound to the (possibly proxied) bean at startup
+ */
+@Getter
+public class TccMethodInvoker {
+    private final String beanName;
+    private final Method method;
+    // (Object[])void, spreads the participant args onto the bound bean method
+    private final MethodHandle handle;
+    // same signature, bound to the bean behind its proxy; null unless the method only needs a local transaction
+    private final MethodHandle targetHandle;
+    // the single-resource transaction manager of the method's @Transactional, null if it has none
+    private final PlatformTransactionManager transactionManager;
+
+    public TccMethodInvoker(String beanName, Method method, MethodHandle handle) {
+        this(beanName, method, handle, null, null);
+    }
+
+    public TccMethodInvoker(String beanName, Method method, MethodHandle handle, MethodHandle targetHandle,
+                            PlatformTransactionManager transactionManager) {
+        this.beanName = beanName;
+        this.method = method;
+        this.handle = handle;
+        this.targetHandle = targetHandle;
+        this.transactionManager = transactionManager;
+    }
+
+    public void invoke(Object[] args) throws Throwable {
+        handle.invokeExact(args);
+    }
+
+    /**
+     * Invoke the bean behind its proxy, so the call joins the caller's transaction
+     * instead of starting its own; only valid if {@link #getTransactionManager()} is set
+     */
+    public void invokeInTransaction(Object[] args) throws Throwable {
+        targetHandle.invokeExact(args);
+    }
+
+    public String getMethodName() {
+        return method.getName();
+    }
+}
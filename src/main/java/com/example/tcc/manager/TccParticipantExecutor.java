@@ -0,0 +1,124 @@
+package com.example.tcc.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+import com.example.tcc.context.TccTransactionContextHolder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs one confirm/cancel phase. Participants are grouped by {@link Participant#getOrder()},
+ * groups run one after another and the members of a group run concurrently on a bounded pool.
+ */
+@Slf4j
+@Component
+public class TccParticipantExecutor {
+
+    @FunctionalInterface
+    public interface ParticipantCall {
+        void call(Participant participant) throws Throwable;
+    }
+
+    public record Failure(Participant participant, Throwable cause) {
+    }
+
+    public record Result(List<Participant> succeeded, List<Failure> failures) {
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+
+    @Autowired
+    private TccProperties properties;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        TccProperties.Executor config = properties.getExecutor();
+        executor = BoundedExecutors.callerRuns("tcc-participant-", config.getPoolSize(), config.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Confirm phase: groups in ascending order, stop at the first group with a failure
+     * so that later groups never observe a partially confirmed predecessor.
+     */
+    public Result confirm(List<Participant> participants, ParticipantCall call) {
+        return run(participants, false, true, call);
+    }
+
+    /**
+     * Cancel phase: groups in descending order, members in reverse registration order,
+     * every participant is attempted even if others fail.
+     */
+    public Result cancel(List<Participant> participants, ParticipantCall call) {
+        return run(participants, true, false, call);
+    }
+
+    private Result run(List<Participant> participants, boolean reverse, boolean stopOnFailure, ParticipantCall call) {
+        NavigableMap<Integer, List<Participant>> groups = new TreeMap<>();
+        for (Participant p : participants) {
+            groups.computeIfAbsent(p.getOrder(), k -> new ArrayList<>()).add(p);
+        }
+        Result result = new Result(new ArrayList<>(), new ArrayList<>());
+        for (Map.Entry<Integer, List<Participant>> group : (reverse ? groups.descendingMap() : groups).entrySet()) {
+            List<Participant> members = group.getValue();
+            if (reverse) {
+                Collections.reverse(members);
+            }
+            runGroup(members, call, result);
+            if (stopOnFailure && !result.isSuccess()) {
+                log.warn("Ordering group {} failed, skipping remaining groups", group.getKey());
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void runGroup(List<Participant> members, ParticipantCall call, Result result) {
+        if (members.size() == 1) {
+            invoke(members.get(0), call, result);
+            return;
+        }
+        // hand off all but the last member, the coordinator thread runs the last one itself
+        List<CompletableFuture<Void>> futures = new ArrayList<>(members.size() - 1);
+        for (int i = 0; i < members.size() - 1; i++) {
+            Participant p = members.get(i);
+            futures.add(CompletableFuture.runAsync(TccTransactionContextHolder.wrap(() -> invoke(p, call, result)), executor));
+        }
+        invoke(members.get(members.size() - 1), call, result);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void invoke(Participant p, ParticipantCall call, Result result) {
+        try {
+            call.call(p);
+            synchronized (result) {
+                result.succeeded().add(p);
+            }
+        } catch (Throwable e) {
+            synchronized (result) {
+                result.failures().add(new Failure(p, e));
+            }
+        }
+    }
+}
@@ -1,129 +1,211 @@
 package com.example.tcc.manager;
 
-import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import com.example.tcc.config.TccProperties;
 import com.example.tcc.context.Participant;
+import com.example.tcc.context.TccTransactionContext;
 import com.example.tcc.context.TccTransactionContextHolder;
 import com.example.tcc.entity.TccLog;
-import com.example.tcc.repository.TccLogRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.tcc.exception.TccException;
+import com.example.tcc.exception.TccParticipantException;
+import com.example.tcc.exception.TccTimeoutException;
+import com.example.tcc.metrics.TccBeginEvent;
+import com.example.tcc.metrics.TccMetrics;
+import com.example.tcc.metrics.TccRegisterEvent;
+import com.example.tcc.remote.RemoteParticipantClient;
+import com.example.tcc.store.ParticipantStore;
+import com.example.tcc.store.TccLogStore;
 
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 public class TccTransactionManager {
-    @Autowired 
-    private TccLogRepository tccLogRepository;
     @Autowired
-    private StringRedisTemplate redisTemplate;
+    private TccLogStore tccLogStore;
     @Autowired
-    private ApplicationContext applicationContext;
-    
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ParticipantStore participantStore;
+    @Autowired
+    private TccActionRegistry actionRegistry;
+    @Autowired
+    private TccParticipantExecutor participantExecutor;
+    @Autowired
+    private TccAsyncCommitter asyncCommitter;
+    @Autowired
+    private TccMetrics metrics;
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private RemoteParticipantClient remoteParticipantClient;
+    @Autowired
+    private TccLocalTransactionPhase localTransactionPhase;
 
     /**
      * begin a tcc transaction
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void begin(){
+        begin(0);
+    }
+
+    /**
+     * begin a tcc transaction with a deadline
+     * @param timeoutMs time the transaction may spend trying, 0 or more than the TRYING timeout uses the TRYING timeout
+     */
+    public void begin(long timeoutMs){
+        TccBeginEvent event = new TccBeginEvent();
+        event.begin();
         String txid = UUID.randomUUID().toString();
-        TccTransactionContextHolder.setContext(txid);
+        // past the TRYING timeout recovery may cancel the transaction, no try may start after that
+        long tryingTimeoutMs = properties.getRecovery().getTryingTimeoutMs();
+        long effectiveMs = timeoutMs > 0 ? Math.min(timeoutMs, tryingTimeoutMs) : tryingTimeoutMs;
+        Instant deadline = Instant.now().plus(Duration.ofMillis(effectiveMs));
+        TccTransactionContextHolder.setContext(new TccTransactionContext(txid, deadline));
 
         TccLog tccLog = new TccLog();
         tccLog.setTxId(txid);
         tccLog.setStatus("TRYING");
         tccLog.setCreatedTime(LocalDateTime.now());
-        tccLogRepository.save(tccLog);
-        
-        log.info("TCC Transaction started with ID: {}", txid);
+        tccLog.setStatusTime(tccLog.getCreatedTime());
+        tccLog.setRetryCount(0);
+        tccLog.setPartitionKey(TccLog.partitionKey(txid));
+        tccLogStore.insert(tccLog);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.txId = txid;
+            event.timeoutMs = effectiveMs;
+            event.commit();
+        }
+        log.debug("TCC Transaction started with ID: {}", txid);
     }
 
     /**
-     * Register participant
+     * Register participant. It is buffered in the transaction context and written to the store
+     * right before the local transaction of its try commits, or immediately without one,
+     * so a try side effect never becomes visible before its participant is durable.
      * @param participant
      */
-    @SneakyThrows
     public void registerParticipant(Participant participant){
-        String txId = TccTransactionContextHolder.getContext();
-        if(txId == null) {
+        register(participant, context -> {
+            context.addParticipant(participant);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        flushParticipants(context);
+                    }
+                });
+            } else {
+                flushParticipants(context);
+            }
+        });
+    }
+
+    /**
+     * Register a remote participant before its try is sent. It is written to the store right away,
+     * on its own: the try commits on another node, whose branch record makes a cancel of a try that
+     * never applied harmless. Participants buffered by local tries stay buffered.
+     * @param participant
+     */
+    public void registerRemoteParticipant(Participant participant){
+        register(participant, context -> {
+            participantStore.append(context.getTxId(), List.of(participant));
+            synchronized (context.getRoot()) {
+                context.addFlushed(List.of(participant));
+            }
+        });
+    }
+
+    private void register(Participant participant, Consumer<TccTransactionContext> write) {
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        if(context == null) {
             log.warn("No transaction context found when registering participant");
             return;
         }
-        
-        String redisKey = "tcc:tx:" + txId + ":participants";
-        String participantJson = objectMapper.writeValueAsString(participant);
-        redisTemplate.opsForList().rightPush(redisKey, participantJson);
-        
-        log.info("Registered participant: {} for transaction: {}", participant.getBeanName(), txId);
+        TccRegisterEvent event = new TccRegisterEvent();
+        event.begin();
+        String outcome = "failure";
+        try {
+            if (context.isExpired()) {
+                throw new TccTimeoutException(context.getTxId(), context.getDeadline());
+            }
+            write.accept(context);
+            outcome = "success";
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.txId = context.getTxId();
+                event.bean = participant.getBeanName();
+                event.confirmMethod = participant.getConfirmMethod();
+                event.cancelMethod = participant.getCancelMethod();
+                event.node = participant.getNode();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+
+        log.debug("Registered participant: {} for transaction: {}", participant.getBeanName(), context.getTxId());
     }
 
-    @SneakyThrows
-    @Transactional(propagation = Propagation.REQUIRES_NEW)  // Add transaction annotation
+    /**
+     * Write buffered participants to the store in one round-trip. The write runs outside the root
+     * lock, so concurrent branches flush in parallel and the in-memory list may order them
+     * differently than the store; anything that indexes participants uses the store's order.
+     * Tries sharing one local transaction cost one round-trip, concurrent tries one each,
+     * plus the final remove.
+     * @param context
+     */
+    public void flushParticipants(TccTransactionContext context) {
+        List<Participant> pending = context.drainPending();
+        if (pending.isEmpty()) {
+            return;
+        }
+        participantStore.append(context.getTxId(), pending);
+        // only participants that made it to the store are confirmed or cancelled from memory
+        synchronized (context.getRoot()) {
+            context.addFlushed(pending);
+        }
+    }
+
+    /**
+     * Commit the current transaction and wait for every confirm.
+     * Not transactional on purpose: the CONFIRMING status must be durable on its own,
+     * so that a failed confirm leaves the transaction to be retried instead of cancelled.
+     */
     public void commit(){
-        String txId = TccTransactionContextHolder.getContext();
-        if(txId == null){
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        if(context == null){
             log.warn("No transaction context found during commit");
             return;
         }
+        String txId = context.getTxId();
         
-        log.info("Starting commit for transaction: {}", txId);
+        log.debug("Starting commit for transaction: {}", txId);
         
         try {
-            TccLog tccLog = tccLogRepository.findById(txId).orElse(null);
-            //check if the status is TRYING or tccLog is null
-            if(tccLog == null){
-                log.error("TccLog not found for transaction: {}", txId);
-                return;
-            }
-            
-            if(!"TRYING".equals(tccLog.getStatus())){
-                log.warn("Transaction {} is not in TRYING status, current status: {}", txId, tccLog.getStatus());
-                return;
-            }
-            
-            //update status to CONFIRMING
-            tccLog.setStatus("CONFIRMING");
-            tccLogRepository.save(tccLog);
-            log.info("Updated transaction {} status to CONFIRMING", txId);
-
-            //from redis get all participants
-            String redisKey = "tcc:tx:" + txId + ":participants";
-            List<Participant> participants = getParticipants(redisKey);
-            
-            log.info("Found {} participants for transaction {}", participants.size(), txId);
-            
-            // Execute confirm for each participant
-            for(Participant p : participants){
-                try {
-                    log.info("Executing confirm for participant: {}, method: {}", p.getBeanName(), p.getConfirmMethod());
-                    Object bean = applicationContext.getBean(p.getBeanName());
-                    Method method = findMethod(bean.getClass(), p.getConfirmMethod(), p.getArgs());
-                    method.invoke(bean, p.getArgs());
-                    log.info("Successfully confirmed participant: {}", p.getBeanName());
-                } catch (Exception e) {
-                    log.error("Error confirming participant: {}", p.getBeanName(), e);
-                    throw e;
-                }
-            }
-            
-            // Clean up after successful commit
-            tccLogRepository.deleteById(txId);
-            redisTemplate.delete(redisKey);
-            
-            log.info("Successfully committed transaction: {}", txId);
+            flushParticipants(context);
+            markConfirming(txId);
+            confirmParticipants(txId, context.getParticipants(), false);
         } 
         catch(Exception e) {
             log.error("Error during commit for transaction: {}", txId, e);
@@ -134,120 +216,234 @@ public class TccTransactionManager {
         }
     }
 
-    @SneakyThrows
-    @Transactional(propagation = Propagation.REQUIRES_NEW)  // Add transaction annotation
+    /**
+     * Commit the current transaction, returning once the CONFIRMING status is durable.
+     * The confirm phase is handed to the {@link TccAsyncCommitter}.
+     */
+    public void commitAsync(){
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        if(context == null){
+            log.warn("No transaction context found during commit");
+            return;
+        }
+        String txId = context.getTxId();
+        
+        try {
+            flushParticipants(context);
+            markConfirming(txId);
+            asyncCommitter.submit(txId, context.getParticipants());
+        } finally {
+            TccTransactionContextHolder.clearContext();
+        }
+    }
+
     public void rollback() {
-        String txId = TccTransactionContextHolder.getContext();
-        if (txId == null) {
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        if (context == null) {
             log.warn("No transaction context found during rollback");
             return;
         }
+        String txId = context.getTxId();
         
-        log.info("Starting rollback for transaction: {}", txId);
+        log.debug("Starting rollback for transaction: {}", txId);
         
         try {
-            TccLog tccLog = tccLogRepository.findById(txId).orElse(null);
-            if (tccLog == null) {
-                log.error("TccLog not found for transaction: {}", txId);
-                return;
-            }
-            
-            if (!"TRYING".equals(tccLog.getStatus())) {
-                log.warn("Transaction {} is not in TRYING status, current status: {}", txId, tccLog.getStatus());
-                return;
-            }
-            
-            tccLog.setStatus("CANCELING");
-            tccLogRepository.save(tccLog);
-            log.info("Updated transaction {} status to CANCELING", txId);
-            
-            String redisKey = "tcc:tx:" + txId + ":participants";
-            List<Participant> participants = getParticipants(redisKey);
-            
-            log.info("Found {} participants to rollback for transaction {}", participants.size(), txId);
-            
-            // Rollback in reverse order
-            for (int i = participants.size() - 1; i >= 0; i--) {
-                Participant p = participants.get(i);
-                try {
-                    log.info("Executing cancel for participant: {}, method: {}", p.getBeanName(), p.getCancelMethod());
-                    Object bean = applicationContext.getBean(p.getBeanName());
-                    Method method = findMethod(bean.getClass(), p.getCancelMethod(), p.getArgs());
-                    method.invoke(bean, p.getArgs());
-                    log.info("Successfully cancelled participant: {}", p.getBeanName());
-                } catch (Exception e) {
-                    log.error("Error cancelling participant: {}", p.getBeanName(), e);
-                    // Continue with other participants even if one fails
-                }
+            // unflushed participants belong to tries whose local transaction never committed
+            context.discardPending();
+            List<Participant> participants = context.getParticipants();
+            if (participants.isEmpty()) {
+                // no try committed, nothing to cancel or recover
+                tccLogStore.delete(txId);
+            } else if (markStatus(txId, "CANCELING")) {
+                cancelParticipants(txId, participants, false);
             }
-            
-            // Clean up after rollback
-            tccLogRepository.deleteById(txId);
-            redisTemplate.delete(redisKey);
-            
-            log.info("Successfully rolled back transaction: {}", txId);
+        } catch (TccParticipantException e) {
+            // must not hide the exception that triggered the rollback
+            log.error("Transaction {} left in CANCELING for recovery", txId, e);
         } finally {
             TccTransactionContextHolder.clearContext();
         }
     }
-    
-    @SneakyThrows
-    private List<Participant> getParticipants(String redisKey){
-        List<String> participantsJson = redisTemplate.opsForList().range(redisKey, 0, -1);
-        if(participantsJson == null || participantsJson.isEmpty()){
-            log.warn("No participants found for key: {}", redisKey);
-            return List.of();
+
+    /**
+     * Confirm every participant of a transaction already in CONFIRMING status and clean it up,
+     * reading the participants back from the store
+     * @param txId
+     * @param retry whether participants completed by an earlier attempt must be skipped
+     */
+    public void confirmParticipants(String txId, boolean retry) {
+        confirmParticipants(txId, participantStore.load(txId), retry);
+    }
+
+    /**
+     * Confirm the given participants of a transaction already in CONFIRMING status and clean it up
+     * @param txId
+     * @param participants all participants of the transaction in registration order
+     * @param retry whether participants completed by an earlier attempt must be skipped
+     */
+    public void confirmParticipants(String txId, List<Participant> participants, boolean retry) {
+        if (TccTransactionContextHolder.getContext() == null) {
+            // async commit and recovery: participants still see which transaction they complete
+            TccTransactionContextHolder.runWith(new TccTransactionContext(txId), () -> confirmParticipants(txId, participants, retry));
+            return;
         }
-        return participantsJson.stream().map(this::deserializeParticipant).collect(Collectors.toList());
+        List<Participant> pending = retry ? pendingParticipants(txId, participants) : participants;
+        
+        log.debug("Found {} participants for transaction {}", pending.size(), txId);
+        
+        // Execute confirm for each participant, ordering groups run one after another
+        // remote participants of one node and ordering group share a single request
+        // local participants on one DataSource share a single local transaction
+        if (!localTransactionPhase.run(txId, "confirm", pending)) {
+            TccParticipantExecutor.ParticipantCall remote = remoteParticipantClient.batchCall(txId, "confirm", pending);
+            TccParticipantExecutor.Result result = participantExecutor.confirm(pending, p -> {
+                if (p.getNode() != null) {
+                    remote.call(p);
+                    return;
+                }
+                log.debug("Executing confirm for participant: {}, method: {}", p.getBeanName(), p.getConfirmMethod());
+                metrics.timeParticipant(txId, "confirm", p.getBeanName(), p.getConfirmMethod(),
+                    () -> actionRegistry.getInvoker(p.getBeanName(), p.getConfirmMethod()).invoke(p.getArgs()));
+                log.debug("Successfully confirmed participant: {}", p.getBeanName());
+            });
+            if (!result.isSuccess()) {
+                result.failures().forEach(f -> log.error("Error confirming participant: {}", f.participant().getBeanName(), f.cause()));
+                throw phaseFailure(txId, "confirm", pending, result);
+            }
+        }
+        
+        // Clean up after successful commit
+        // participants first: a row without participants is harmless, participants without a row look orphaned
+        participantStore.remove(txId);
+        tccLogStore.delete(txId);
+        
+        log.debug("Successfully committed transaction: {}", txId);
     }
 
-    @SneakyThrows
-    private Participant deserializeParticipant(String participantJson) {
-        return objectMapper.readValue(participantJson, Participant.class);
+    /**
+     * Cancel every participant of a transaction already in CANCELING status and clean it up,
+     * reading the participants back from the store
+     * @param txId
+     * @param retry whether participants completed by an earlier attempt must be skipped
+     */
+    public void cancelParticipants(String txId, boolean retry) {
+        cancelParticipants(txId, participantStore.load(txId), retry);
     }
 
-    @SneakyThrows
-    private Method findMethod(Class<?> clazz, String methodName, Object[] args) {
-        log.debug("Looking for method {} in class {} with {} arguments", methodName, clazz.getName(), args.length);
+    /**
+     * Cancel the given participants of a transaction already in CANCELING status and clean it up.
+     * Every participant is attempted, the transaction is only removed if all of them succeeded.
+     * @param txId
+     * @param participants all participants of the transaction in registration order
+     * @param retry whether participants completed by an earlier attempt must be skipped
+     */
+    public void cancelParticipants(String txId, List<Participant> participants, boolean retry) {
+        if (TccTransactionContextHolder.getContext() == null) {
+            // async commit and recovery: participants still see which transaction they complete
+            TccTransactionContextHolder.runWith(new TccTransactionContext(txId), () -> cancelParticipants(txId, participants, retry));
+            return;
+        }
+        List<Participant> pending = retry ? pendingParticipants(txId, participants) : participants;
         
-        for (Method method : clazz.getMethods()) {
-            if (method.getName().equals(methodName) && method.getParameterCount() == args.length) {
-                Class<?>[] methodParamTypes = method.getParameterTypes();
-                boolean isMatch = true;
-                
-                for (int i = 0; i < args.length; i++) {
-                    Object arg = args[i];
-                    Class<?> methodParamType = methodParamTypes[i];
-                    
-                    if (arg == null) {
-                        continue;
-                    }
-                    
-                    if (!methodParamType.isAssignableFrom(arg.getClass()) && 
-                        !isWrapperTypeOf(methodParamType, arg.getClass())) {
-                        isMatch = false;
-                        break;
-                    }
-                }
-                
-                if (isMatch) {
-                    log.debug("Found method {} in class {}", methodName, clazz.getName());
-                    return method;
+        log.debug("Found {} participants to rollback for transaction {}", pending.size(), txId);
+        
+        // Rollback in reverse order, continue with other participants even if one fails
+        if (!localTransactionPhase.run(txId, "cancel", pending)) {
+            TccParticipantExecutor.ParticipantCall remote = remoteParticipantClient.batchCall(txId, "cancel", pending);
+            TccParticipantExecutor.Result result = participantExecutor.cancel(pending, p -> {
+                if (p.getNode() != null) {
+                    remote.call(p);
+                    return;
                 }
+                log.debug("Executing cancel for participant: {}, method: {}", p.getBeanName(), p.getCancelMethod());
+                metrics.timeParticipant(txId, "cancel", p.getBeanName(), p.getCancelMethod(),
+                    () -> actionRegistry.getInvoker(p.getBeanName(), p.getCancelMethod()).invoke(p.getArgs()));
+                log.debug("Successfully cancelled participant: {}", p.getBeanName());
+            });
+            if (!result.isSuccess()) {
+                result.failures().forEach(f -> log.error("Error cancelling participant: {}", f.participant().getBeanName(), f.cause()));
+                throw phaseFailure(txId, "cancel", pending, result);
             }
         }
         
-        throw new NoSuchMethodException("In class " + clazz.getName() + " don't find method '" + methodName + "' compatible with args");
+        // Clean up after rollback
+        // participants first: a row without participants is harmless, participants without a row look orphaned
+        participantStore.remove(txId);
+        tccLogStore.delete(txId);
+        
+        log.debug("Successfully rolled back transaction: {}", txId);
     }
-    
-    private boolean isWrapperTypeOf(Class<?> primitive, Class<?> wrapper) {
-        if (!primitive.isPrimitive()) {
-            return false;
+
+    private void markConfirming(String txId) {
+        if (!markStatus(txId, "CONFIRMING")) {
+            throw new TccException("Transaction " + txId + " can no longer be committed");
         }
-        try {
-            return wrapper.getField("TYPE").get(null).equals(primitive);
-        } catch (Exception e) {
-            return false;
+    }
+
+    /**
+     * Move a transaction out of TRYING
+     * @return true if this call made the transition
+     */
+    private boolean markStatus(String txId, String status) {
+        if (tccLogStore.updateStatus(txId, "TRYING", status)) {
+            log.debug("Updated transaction {} status to {}", txId, status);
+            return true;
+        }
+        TccLog tccLog = tccLogStore.find(txId).orElse(null);
+        if (tccLog == null) {
+            log.error("TccLog not found for transaction: {}", txId);
+        } else {
+            log.warn("Transaction {} is not in TRYING status, current status: {}", txId, tccLog.getStatus());
+        }
+        return false;
+    }
+
+    /**
+     * Participants not completed by an earlier, partially failed attempt. The completed indexes
+     * refer to the store's order, so the remaining ones are taken from the store.
+     */
+    private List<Participant> pendingParticipants(String txId, List<Participant> participants) {
+        String completed = tccLogStore.find(txId).map(TccLog::getCompletedParticipants).orElse(null);
+        if (!StringUtils.hasText(completed)) {
+            return participants;
+        }
+        Set<Integer> done = Arrays.stream(completed.split(",")).map(Integer::valueOf).collect(Collectors.toSet());
+        List<Participant> stored = participantStore.load(txId);
+        List<Participant> pending = new ArrayList<>();
+        for (int i = 0; i < stored.size(); i++) {
+            if (!done.contains(i)) {
+                pending.add(stored.get(i));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Remember which participants are done so a retry does not apply them twice,
+     * then build the aggregated exception. Indexes refer to the store's order; equal participants
+     * are interchangeable, so they are matched by count.
+     */
+    private TccParticipantException phaseFailure(String txId, String phase, List<Participant> pending,
+                                                 TccParticipantExecutor.Result result) {
+        Set<Participant> succeeded = Collections.newSetFromMap(new IdentityHashMap<>());
+        succeeded.addAll(result.succeeded());
+        Map<Participant, Integer> open = new HashMap<>();
+        pending.stream().filter(p -> !succeeded.contains(p)).forEach(p -> open.merge(p, 1, Integer::sum));
+        List<Participant> stored = participantStore.load(txId);
+        List<String> completed = new ArrayList<>();
+        for (int i = 0; i < stored.size(); i++) {
+            Integer remaining = open.get(stored.get(i));
+            if (remaining == null) {
+                completed.add(String.valueOf(i));
+            } else if (remaining == 1) {
+                open.remove(stored.get(i));
+            } else {
+                open.put(stored.get(i), remaining - 1);
+            }
         }
+        tccLogStore.updateCompletedParticipants(txId, String.join(",", completed));
+        return new TccParticipantException(txId, phase,
+            result.failures().stream().map(TccParticipantExecutor.Failure::participant).collect(Collectors.toList()),
+            result.failures().stream().map(TccParticipantExecutor.Failure::cause).collect(Collectors.toList()));
     }
-}
\ No newline at end of file
+}
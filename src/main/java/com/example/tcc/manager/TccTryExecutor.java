@@ -0,0 +1,120 @@
+package com.example.tcc.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.TccTransactionContext;
+import com.example.tcc.context.TccTransactionContextHolder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs several tries of the current global transaction concurrently, e.g.
+ * {@code tryExecutor.runAll(() -> walletService.tryDeduct(...), () -> walletService.tryCredit(...))}.
+ *
+ * <p>Each branch runs in its own branch of the transaction context, so its {@code @TccAction}s are
+ * registered. A participant joins the transaction once its try's local transaction commits; the
+ * branches write to the participant store in parallel, so use {@code @TccAction(order)} where
+ * confirm/cancel must be sequenced. Every branch is awaited before a failure is rethrown,
+ * so the rollback that follows cancels exactly the tries that succeeded.
+ */
+@Slf4j
+@Component
+public class TccTryExecutor {
+
+    @Autowired
+    private TccProperties properties;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        TccProperties.TryExecutor config = properties.getTryExecutor();
+        executor = BoundedExecutors.callerRuns("tcc-try-", config.getPoolSize(), config.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Run tries concurrently and wait for all of them
+     * @param tries
+     */
+    public void runAll(Runnable... tries) {
+        callAll(Arrays.stream(tries).<Callable<Void>>map(t -> () -> {
+            t.run();
+            return null;
+        }).toList());
+    }
+
+    /**
+     * Call tries concurrently and wait for all of them. The calling thread runs the last one itself.
+     * @param tries
+     * @return the results in the order of the tries
+     */
+    public <T> List<T> callAll(List<Callable<T>> tries) {
+        TccTransactionContext context = TccTransactionContextHolder.getContext();
+        List<CompletableFuture<T>> futures = new ArrayList<>(tries.size());
+        for (int i = 0; i < tries.size(); i++) {
+            Callable<T> task = tries.get(i);
+            TccTransactionContext branch = context == null ? null : context.branch();
+            if (i < tries.size() - 1) {
+                futures.add(CompletableFuture.supplyAsync(() -> call(branch, task), executor));
+            } else {
+                futures.add(complete(() -> call(branch, task)));
+            }
+        }
+
+        RuntimeException failure = null;
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException re ? re : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            log.warn("Concurrent try failed for transaction {}", context == null ? null : context.getTxId());
+            throw failure;
+        }
+        return results;
+    }
+
+    private static <T> T call(TccTransactionContext branch, Callable<T> task) {
+        try {
+            return TccTransactionContextHolder.callWith(branch, task);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> complete(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
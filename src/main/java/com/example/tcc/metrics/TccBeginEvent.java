@@ -0,0 +1,21 @@
+package com.example.tcc.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.tcc.Begin")
+@Label("TCC Begin")
+@Description("A global transaction started, its duration covers writing the TRYING log")
+@Category("TCC")
+@StackTrace(false)
+public class TccBeginEvent extends jdk.jfr.Event {
+
+    @Label("Transaction Id")
+    public String txId;
+
+    @Label("Timeout (ms)")
+    public long timeoutMs;
+}
@@ -0,0 +1,136 @@
+package com.example.tcc.metrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.repository.TccLogRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Timers and gauges of the TCC coordinator. Every timer name starts with {@code tcc.}:
+ * <ul>
+ * <li>tcc.begin, tcc.try, tcc.commit, tcc.rollback - per global transaction phase</li>
+ * <li>tcc.participant - one confirm/cancel call, tagged by phase, bean and method</li>
+ * <li>tcc.store - participant store and TccLog store calls, tagged by store and operation</li>
+ * </ul>
+ * {@code tcc.admission.rejected} counts transactions shed by admission control, tagged by method and limit.
+ *
+ * <p>Per transaction, the same calls are recorded as JDK Flight Recorder events in the TCC category
+ * (begin, participant registration, confirm/cancel calls, store calls), each carrying the txId, so the
+ * timeline of one slow transaction can be rebuilt from a continuous recording, e.g.
+ * {@code -XX:StartFlightRecording:maxage=1h}. Events cost next to nothing while no recording runs.
+ * TccLog repository calls are timed by Actuator as {@code spring.data.repository.invocations}.
+ */
+@Slf4j
+@Component
+public class TccMetrics {
+
+    private static final List<String> STATUSES = List.of("TRYING", "CONFIRMING", "CANCELING");
+
+    @FunctionalInterface
+    public interface TimedCall {
+        void call() throws Throwable;
+    }
+
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, AtomicLong> logRows = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("tcc.transactions.in_flight", inFlight, AtomicInteger::get)
+            .description("global transactions between begin and the end of commit/rollback on this node")
+            .register(registry);
+        for (String status : STATUSES) {
+            AtomicLong rows = logRows.computeIfAbsent(status, k -> new AtomicLong());
+            Gauge.builder("tcc.log.rows", rows, AtomicLong::get)
+                .description("TccLog rows per status, refreshed periodically")
+                .tag("status", status)
+                .register(registry);
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, String name, String... tags) {
+        sample.stop(registry.timer(name, tags));
+    }
+
+    public AtomicInteger inFlight() {
+        return inFlight;
+    }
+
+    public void rejected(String method, String limit) {
+        registry.counter("tcc.admission.rejected", "method", method, "limit", limit).increment();
+    }
+
+    /**
+     * Time one confirm/cancel call and rethrow its failure
+     */
+    public void timeParticipant(String txId, String phase, String beanName, String methodName, TimedCall call) throws Throwable {
+        Timer.Sample sample = start();
+        TccParticipantEvent event = new TccParticipantEvent();
+        event.begin();
+        String outcome = "success";
+        try {
+            call.call();
+        } catch (Throwable e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            stop(sample, "tcc.participant", "phase", phase, "bean", beanName, "method", methodName, "outcome", outcome);
+            participantEvent(event, txId, phase, beanName, methodName, outcome);
+        }
+    }
+
+    /**
+     * Commit a participant event started by the caller, a no-op unless a recording wants it
+     */
+    public static void participantEvent(TccParticipantEvent event, String txId, String phase, String beanName,
+                                        String methodName, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.txId = txId;
+            event.phase = phase;
+            event.bean = beanName;
+            event.method = methodName;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * Counting rows is a table scan over the status index, so it runs on a timer rather than per scrape
+     */
+    @Scheduled(fixedDelayString = "${tcc.metrics.log-rows-interval-ms:15000}")
+    public void refreshLogRows() {
+        try {
+            Map<String, Long> counts = new HashMap<>();
+            for (Object[] row : tccLogRepository.countByStatus()) {
+                counts.put((String) row[0], (Long) row[1]);
+            }
+            STATUSES.forEach(status -> logRows.get(status).set(counts.getOrDefault(status, 0L)));
+        } catch (Exception e) {
+            log.warn("Could not refresh TccLog row gauges", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.tcc.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.tcc.Participant")
+@Label("TCC Participant Call")
+@Description("One confirm or cancel invocation, or one batch of them sent to a remote node")
+@Category("TCC")
+@StackTrace(false)
+public class TccParticipantEvent extends jdk.jfr.Event {
+
+    @Label("Transaction Id")
+    public String txId;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Bean")
+    public String bean;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Outcome")
+    public String outcome;
+}
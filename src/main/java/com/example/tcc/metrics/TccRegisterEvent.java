@@ -0,0 +1,33 @@
+package com.example.tcc.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.tcc.Register")
+@Label("TCC Register Participant")
+@Description("A try registered its participant, outside a local transaction the duration covers the store write")
+@Category("TCC")
+@StackTrace(false)
+public class TccRegisterEvent extends jdk.jfr.Event {
+
+    @Label("Transaction Id")
+    public String txId;
+
+    @Label("Bean")
+    public String bean;
+
+    @Label("Confirm Method")
+    public String confirmMethod;
+
+    @Label("Cancel Method")
+    public String cancelMethod;
+
+    @Label("Node")
+    public String node;
+
+    @Label("Outcome")
+    public String outcome;
+}
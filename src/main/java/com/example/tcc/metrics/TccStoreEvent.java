@@ -0,0 +1,27 @@
+package com.example.tcc.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.tcc.Store")
+@Label("TCC Store Call")
+@Description("One participant store or TccLog store call")
+@Category("TCC")
+@StackTrace(false)
+public class TccStoreEvent extends jdk.jfr.Event {
+
+    @Label("Transaction Id")
+    public String txId;
+
+    @Label("Store")
+    public String store;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,73 @@
+package com.example.tcc.recovery;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.manager.TccTransactionManager;
+import com.example.tcc.repository.TccLogRepository;
+import com.example.tcc.store.LazyTccLogStore;
+import com.example.tcc.store.ParticipantStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * With lazy TccLog persistence a coordinator that crashes within the lazy threshold leaves
+ * participants without a TccLog row. Participants are removed before the row is deleted, so such
+ * an orphan never belongs to a finished transaction: it is given a CANCELING row and cancelled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tcc.log-writer", name = "lazy", havingValue = "true")
+public class TccOrphanRecovery {
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private ParticipantStore participantStore;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @Autowired
+    private LazyTccLogStore lazyTccLogStore;
+    @Autowired
+    private TccTransactionManager transactionManager;
+    @Autowired
+    private TccPartitionLeases partitionLeases;
+
+    @Scheduled(fixedDelayString = "${tcc.recovery.interval-ms:10000}", initialDelayString = "${tcc.recovery.interval-ms:10000}")
+    public void recoverOrphans() {
+        TccProperties.Recovery recovery = properties.getRecovery();
+        if (!recovery.isEnabled()) {
+            return;
+        }
+        // a live coordinator writes the row within the threshold, the grace period covers clock and scheduling slack
+        Duration age = Duration.ofMillis(properties.getLogWriter().getLazyThresholdMs() + recovery.getGracePeriodMs());
+        for (String txId : participantStore.findOlderThan(age, recovery.getBatchSize())) {
+            if (!partitionLeases.owns(txId) || tccLogRepository.existsById(txId)) {
+                continue;
+            }
+            TccLog tccLog = new TccLog();
+            tccLog.setTxId(txId);
+            tccLog.setStatus("CANCELING");
+            tccLog.setCreatedTime(LocalDateTime.now());
+            tccLog.setStatusTime(tccLog.getCreatedTime());
+            tccLog.setRetryCount(0);
+            tccLog.setPartitionKey(TccLog.partitionKey(txId));
+            if (!lazyTccLogStore.insertDurably(tccLog)) {
+                continue;
+            }
+            log.warn("Cancelling orphaned transaction {} found in the participant store", txId);
+            try {
+                transactionManager.cancelParticipants(txId, false);
+            } catch (Exception e) {
+                log.error("Orphaned transaction {} left in CANCELING for recovery", txId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.tcc.recovery;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.entity.TccCoordinatorInstance;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.entity.TccPartitionLease;
+import com.example.tcc.repository.TccCoordinatorInstanceRepository;
+import com.example.tcc.repository.TccPartitionLeaseRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Splits recovery across coordinator instances sharing one database. The txId space is hashed into
+ * {@code tcc.partitioning.partitions} partitions, every instance holds renewable leases on about
+ * its fair share of them and only recovers transactions of those partitions.
+ *
+ * <p>Each renewal an instance writes its heartbeat, renews its leases, counts the live instances and
+ * then either hands back the partitions above its fair share or takes free and expired ones up to
+ * it. A joining instance thereby gets partitions within a few renew intervals, the partitions of
+ * an instance that stops cleanly are free right away and those of a crashed one once its leases
+ * expire. Lease times are written with the instances' clocks, so the clock skew between them must
+ * stay well below the lease TTL; should two instances still scan one partition for a moment, the
+ * claim on the TccLog row keeps them from recovering the same transaction twice.
+ *
+ * <p>With partitioning disabled every instance owns every transaction.
+ */
+@Slf4j
+@Component
+public class TccPartitionLeases {
+
+    private record Ownership(Set<Integer> partitions, LocalDateTime validUntil) {
+    }
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private TccPartitionLeaseRepository leaseRepository;
+    @Autowired
+    private TccCoordinatorInstanceRepository instanceRepository;
+
+    private String instanceId;
+    private volatile Ownership ownership = new Ownership(Set.of(), LocalDateTime.MIN);
+
+    @PostConstruct
+    public void init() {
+        TccProperties.Partitioning config = properties.getPartitioning();
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (config.getLeaseTtlMs() <= config.getRenewIntervalMs()) {
+            throw new IllegalStateException("tcc.partitioning.lease-ttl-ms (" + config.getLeaseTtlMs()
+                + ") must be greater than tcc.partitioning.renew-interval-ms (" + config.getRenewIntervalMs() + ")");
+        }
+        instanceId = StringUtils.hasText(config.getInstanceId()) ? config.getInstanceId() : UUID.randomUUID().toString();
+        Set<Integer> existing = new HashSet<>();
+        leaseRepository.findAll().forEach(lease -> existing.add(lease.getPartitionNo()));
+        for (int partitionNo = 0; partitionNo < config.getPartitions(); partitionNo++) {
+            if (existing.contains(partitionNo)) {
+                continue;
+            }
+            TccPartitionLease lease = new TccPartitionLease();
+            lease.setPartitionNo(partitionNo);
+            try {
+                leaseRepository.save(lease);
+            } catch (DataIntegrityViolationException e) {
+                // another instance starting at the same time created it
+            }
+        }
+        log.info("Coordinator instance {} leasing {} recovery partitions", instanceId, config.getPartitions());
+    }
+
+    /**
+     * Leave cleanly, the partitions are free for the other instances right away
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (instanceId == null) {
+            return;
+        }
+        ownership = new Ownership(Set.of(), LocalDateTime.MIN);
+        try {
+            leaseRepository.releaseAll(instanceId);
+            instanceRepository.deleteById(instanceId);
+        } catch (Exception e) {
+            log.warn("Could not release the partitions of instance {}, they free up once the leases expire", instanceId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tcc.partitioning.renew-interval-ms:5000}")
+    public void renew() {
+        if (instanceId == null) {
+            return;
+        }
+        TccProperties.Partitioning config = properties.getPartitioning();
+        LocalDateTime now = LocalDateTime.now();
+        Duration ttl = Duration.ofMillis(config.getLeaseTtlMs());
+        LocalDateTime until = now.plus(ttl);
+
+        TccCoordinatorInstance instance = new TccCoordinatorInstance();
+        instance.setInstanceId(instanceId);
+        instance.setHeartbeatTime(now);
+        instanceRepository.save(instance);
+        leaseRepository.renew(instanceId, now, until);
+
+        List<Integer> owned = new ArrayList<>(leaseRepository.findOwned(instanceId, now, config.getPartitions()));
+        int live = Math.max(1, instanceRepository.findLive(now.minus(ttl)).size());
+        int fairShare = (config.getPartitions() + live - 1) / live;
+        // the highest partitions go first, the lowest are kept so ownership moves as little as possible
+        while (owned.size() > fairShare) {
+            leaseRepository.release(owned.remove(owned.size() - 1), instanceId);
+        }
+        if (owned.size() < fairShare) {
+            for (Integer partitionNo : leaseRepository.findAvailable(now, config.getPartitions())) {
+                if (leaseRepository.acquire(partitionNo, instanceId, now, until) == 1) {
+                    owned.add(partitionNo);
+                    if (owned.size() >= fairShare) {
+                        break;
+                    }
+                }
+            }
+        }
+        Set<Integer> previous = ownership.partitions();
+        ownership = new Ownership(Set.copyOf(owned), until);
+        if (!previous.equals(ownership.partitions())) {
+            log.info("Instance {} of {} owns {} recovery partitions", instanceId, live, owned.size());
+        }
+        instanceRepository.deleteStale(now.minus(ttl.multipliedBy(4)));
+    }
+
+    public boolean isEnabled() {
+        return properties.getPartitioning().isEnabled();
+    }
+
+    /**
+     * Partitions this instance may recover right now, empty once its leases may have expired
+     * @return partition numbers, only meaningful if partitioning is enabled
+     */
+    public Set<Integer> ownedPartitions() {
+        Ownership current = ownership;
+        return LocalDateTime.now().isBefore(current.validUntil()) ? current.partitions() : Set.of();
+    }
+
+    /**
+     * @param txId
+     * @return true if this instance may recover the transaction
+     */
+    public boolean owns(String txId) {
+        return !isEnabled() || ownedPartitions().contains(partitionOf(txId));
+    }
+
+    /**
+     * @param txId
+     * @return partition of a transaction
+     */
+    public int partitionOf(String txId) {
+        return TccLog.partitionKey(txId) % properties.getPartitioning().getPartitions();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+}
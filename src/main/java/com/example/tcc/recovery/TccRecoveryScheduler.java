@@ -0,0 +1,140 @@
+package com.example.tcc.recovery;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.manager.TccTransactionManager;
+import com.example.tcc.repository.TccLogRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives transactions left behind by a crash or a failed confirm/cancel to completion:
+ * CONFIRMING is confirmed, CANCELING is cancelled and TRYING past the timeout is cancelled.
+ * With {@code tcc.partitioning.enabled} only the partitions leased by this instance are scanned.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tcc.recovery", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TccRecoveryScheduler {
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @Autowired
+    private TccTransactionManager transactionManager;
+    @Autowired
+    private TccPartitionLeases partitionLeases;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void init() {
+        workers = Executors.newFixedThreadPool(properties.getRecovery().getConcurrency(),
+            new CustomizableThreadFactory("tcc-recovery-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${tcc.recovery.interval-ms:10000}", initialDelayString = "${tcc.recovery.interval-ms:10000}")
+    public void recover() {
+        TccProperties.Recovery config = properties.getRecovery();
+        // null scans every partition
+        Set<Integer> partitions = partitionLeases.isEnabled() ? partitionLeases.ownedPartitions() : null;
+        if (partitions != null && partitions.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int recovered = recoverStatus("CONFIRMING", now.minus(Duration.ofMillis(config.getGracePeriodMs())), now, partitions)
+            + recoverStatus("CANCELING", now.minus(Duration.ofMillis(config.getGracePeriodMs())), now, partitions)
+            + recoverStatus("TRYING", now.minus(Duration.ofMillis(config.getTryingTimeoutMs())), now, partitions);
+        if (recovered > 0) {
+            log.info("Recovery run attempted {} transactions", recovered);
+        }
+    }
+
+    /**
+     * Page through stale transactions of one status, oldest first, in bounded batches
+     * @param partitions partitions owned by this instance, null for all
+     * @return number of transactions attempted
+     */
+    private int recoverStatus(String status, LocalDateTime changedBefore, LocalDateTime now, Set<Integer> partitions) {
+        TccProperties.Recovery config = properties.getRecovery();
+        int attempted = 0;
+        for (int batch = 0; batch < config.getMaxBatchesPerRun(); batch++) {
+            // claimed rows get a future nextRetryTime, so the first page always holds the next batch
+            PageRequest page = PageRequest.of(0, config.getBatchSize());
+            List<TccLog> logs = partitions == null
+                ? tccLogRepository.findRecoverable(status, changedBefore, now, page)
+                : tccLogRepository.findRecoverableInPartitions(status, changedBefore, now,
+                    properties.getPartitioning().getPartitions(), partitions, page);
+            if (logs.isEmpty()) {
+                break;
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>(logs.size());
+            for (TccLog tccLog : logs) {
+                futures.add(CompletableFuture.runAsync(() -> recover(tccLog, now), workers));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            attempted += logs.size();
+            if (logs.size() < config.getBatchSize()) {
+                break;
+            }
+        }
+        return attempted;
+    }
+
+    private void recover(TccLog tccLog, LocalDateTime now) {
+        String txId = tccLog.getTxId();
+        if (tccLogRepository.claim(txId, tccLog.getStatus(), now, nextRetryTime(tccLog, now)) == 0) {
+            return;
+        }
+        try {
+            switch (tccLog.getStatus()) {
+                case "CONFIRMING" -> transactionManager.confirmParticipants(txId, true);
+                case "CANCELING" -> transactionManager.cancelParticipants(txId, true);
+                case "TRYING" -> {
+                    if (tccLogRepository.updateStatus(txId, "TRYING", "CANCELING", LocalDateTime.now()) == 1) {
+                        log.warn("Transaction {} timed out in TRYING, cancelling", txId);
+                        transactionManager.cancelParticipants(txId, true);
+                    }
+                }
+                default -> log.warn("Transaction {} has unknown status {}", txId, tccLog.getStatus());
+            }
+        } catch (Exception e) {
+            log.error("Recovery of transaction {} failed, attempt {}", txId, retryCount(tccLog) + 1, e);
+        }
+    }
+
+    private LocalDateTime nextRetryTime(TccLog tccLog, LocalDateTime now) {
+        TccProperties.Recovery config = properties.getRecovery();
+        int shift = Math.min(retryCount(tccLog), 30);
+        long backoff = Math.min(config.getMaxBackoffMs(), config.getInitialBackoffMs() << shift);
+        return now.plus(Duration.ofMillis(backoff));
+    }
+
+    private int retryCount(TccLog tccLog) {
+        return tccLog.getRetryCount() == null ? 0 : tccLog.getRetryCount();
+    }
+}
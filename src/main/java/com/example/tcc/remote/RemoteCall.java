@@ -0,0 +1,9 @@
+package com.example.tcc.remote;
+
+/**
+ * One try, confirm or cancel call of a remote participant.
+ * Arguments travel as plain JSON and are converted to the parameter types on the participant node.
+ * The branchId names the participant on that node, the same for its try, confirm and cancel.
+ */
+public record RemoteCall(String branchId, String beanName, String method, Object[] args) {
+}
@@ -0,0 +1,7 @@
+package com.example.tcc.remote;
+
+/**
+ * Outcome of one call of a batched confirm/cancel, error is null on success
+ */
+public record RemoteCallResult(boolean success, String error) {
+}
@@ -0,0 +1,106 @@
+package com.example.tcc.remote;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.tcc.config.TccProperties;
+
+/**
+ * Authenticates calls between coordinator and participant nodes. Every request carries an
+ * HMAC-SHA256 over its path, txId, request id, timestamp and body, keyed with {@code tcc.remote.shared-secret};
+ * the participant node rejects requests with a wrong signature or an old timestamp, and a request id
+ * it has already accepted within the clock skew window. The ids are remembered per instance; a replay
+ * to another instance of the participant node is absorbed by its branch records.
+ */
+@Component
+public class RemoteCallSigner {
+
+    public static final String TIMESTAMP_HEADER = "X-Tcc-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-Tcc-Signature";
+    public static final String REQUEST_ID_HEADER = "X-Tcc-Request-Id";
+
+    @Autowired
+    private TccProperties properties;
+
+    // accepted request id -> epoch millis after which its timestamp is rejected anyway
+    private final Map<String, Long> acceptedRequests = new ConcurrentHashMap<>();
+
+    public boolean hasSecret() {
+        return StringUtils.hasText(properties.getRemote().getSharedSecret());
+    }
+
+    /**
+     * @param path try, confirm or cancel
+     * @param txId
+     * @param requestId unique per request
+     * @param timestamp epoch millis of the request
+     * @param body
+     * @return hex encoded signature
+     */
+    public String sign(String path, String txId, String requestId, long timestamp, byte[] body) {
+        String secret = properties.getRemote().getSharedSecret();
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalStateException("tcc.remote.shared-secret is not configured");
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            mac.update((path + "\n" + txId + "\n" + requestId + "\n" + timestamp + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign TCC remote call", e);
+        }
+    }
+
+    /**
+     * @return true if the signature matches and the timestamp is within tcc.remote.max-clock-skew-ms
+     */
+    public boolean verify(String path, String txId, String requestId, String timestamp, String signature, byte[] body) {
+        if (txId == null || requestId == null || timestamp == null || signature == null) {
+            return false;
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() - millis) > properties.getRemote().getMaxClockSkewMs()) {
+            return false;
+        }
+        byte[] expected = sign(path, txId, requestId, millis, body).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Remember the id of a verified request
+     * @param requestId
+     * @param timestamp as passed to {@link #verify}
+     * @return false if a request with this id was accepted before, i.e. this one is a replay
+     */
+    public boolean accept(String requestId, String timestamp) {
+        long expiresAt = Long.parseLong(timestamp) + properties.getRemote().getMaxClockSkewMs();
+        return acceptedRequests.putIfAbsent(requestId, expiresAt) == null;
+    }
+
+    /**
+     * Forget request ids whose timestamp is no longer accepted
+     */
+    @Scheduled(fixedDelayString = "${tcc.remote.max-clock-skew-ms:60000}")
+    public void purgeAcceptedRequests() {
+        long now = System.currentTimeMillis();
+        acceptedRequests.values().removeIf(expiresAt -> expiresAt < now);
+    }
+}
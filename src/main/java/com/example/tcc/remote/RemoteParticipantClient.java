@@ -0,0 +1,193 @@
+package com.example.tcc.remote;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+import com.example.tcc.exception.TccRemoteException;
+import com.example.tcc.manager.TccParticipantExecutor;
+import com.example.tcc.metrics.TccMetrics;
+import com.example.tcc.metrics.TccParticipantEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coordinator side of remote participants. One HttpClient keeps pooled keep-alive connections
+ * to every node; the txId travels in the {@value #TX_ID_HEADER} header and every request is
+ * signed by {@link RemoteCallSigner}.
+ */
+@Slf4j
+@Component
+public class RemoteParticipantClient {
+
+    public static final String TX_ID_HEADER = "X-Tcc-Tx-Id";
+
+    private record BatchKey(String node, int order) {
+    }
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private TccMetrics metrics;
+    @Autowired
+    private RemoteCallSigner signer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.getRemote().getNodes().isEmpty() && !signer.hasSecret()) {
+            throw new IllegalStateException("tcc.remote.nodes requires tcc.remote.shared-secret");
+        }
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(properties.getRemote().getConnectTimeoutMs()))
+            .build();
+    }
+
+    /**
+     * Run a try on a remote node
+     * @param txId
+     * @param node
+     * @param call
+     * @throws TccRemoteException if the try failed, {@link TccRemoteException#isOutcomeUnknown()} tells
+     *         whether the node may still have applied it
+     */
+    public void tryAction(String txId, String node, RemoteCall call) {
+        HttpResponse<String> response = send(txId, node, "try", call);
+        if (response.statusCode() == 422) {
+            throw new TccRemoteException(node, "Try " + call.beanName() + "." + call.method() + " rejected by node "
+                + node + ": " + response.body(), false);
+        }
+        if (response.statusCode() == 401) {
+            throw new TccRemoteException(node, "Node " + node + " rejected the signature of try " + call.beanName()
+                + "." + call.method() + ", check tcc.remote.shared-secret", false);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new TccRemoteException(node, "Try " + call.beanName() + "." + call.method() + " on node " + node
+                + " answered " + response.statusCode() + ": " + response.body(), true);
+        }
+    }
+
+    /**
+     * Build the call for the remote participants of one confirm/cancel phase. Participants of the
+     * same node and ordering group go out as one request, sent by whichever of them runs first;
+     * each participant then succeeds or fails with its own entry of the response.
+     * @param txId
+     * @param phase confirm or cancel
+     * @param participants the participants of the phase, local ones are ignored
+     * @return ParticipantCall for the remote participants
+     */
+    public TccParticipantExecutor.ParticipantCall batchCall(String txId, String phase, List<Participant> participants) {
+        Map<BatchKey, List<Participant>> batches = new ConcurrentHashMap<>();
+        Map<Participant, Integer> positions = new IdentityHashMap<>();
+        for (Participant p : participants) {
+            if (p.getNode() != null) {
+                List<Participant> batch = batches.computeIfAbsent(new BatchKey(p.getNode(), p.getOrder()), k -> new ArrayList<>());
+                positions.put(p, batch.size());
+                batch.add(p);
+            }
+        }
+        Map<BatchKey, FutureTask<List<RemoteCallResult>>> sent = new ConcurrentHashMap<>();
+        return p -> {
+            BatchKey key = new BatchKey(p.getNode(), p.getOrder());
+            FutureTask<List<RemoteCallResult>> task = new FutureTask<>(() -> sendBatch(txId, phase, key.node(), batches.get(key)));
+            FutureTask<List<RemoteCallResult>> existing = sent.putIfAbsent(key, task);
+            if (existing == null) {
+                task.run();
+            } else {
+                task = existing;
+            }
+            List<RemoteCallResult> results;
+            try {
+                results = task.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+            RemoteCallResult result = results.get(positions.get(p));
+            if (!result.success()) {
+                throw new TccRemoteException(p.getNode(), phase + " of " + p.getBeanName() + " failed on node "
+                    + p.getNode() + ": " + result.error(), false);
+            }
+        };
+    }
+
+    private List<RemoteCallResult> sendBatch(String txId, String phase, String node, List<Participant> batch) throws IOException {
+        Timer.Sample sample = metrics.start();
+        TccParticipantEvent event = new TccParticipantEvent();
+        event.begin();
+        String outcome = "failure";
+        try {
+            List<RemoteCall> calls = batch.stream()
+                .map(p -> new RemoteCall(p.getBranchId(), p.getBeanName(),
+                    "confirm".equals(phase) ? p.getConfirmMethod() : p.getCancelMethod(), p.getArgs()))
+                .toList();
+            HttpResponse<String> response = send(txId, node, phase, calls);
+            if (response.statusCode() / 100 != 2) {
+                throw new TccRemoteException(node, phase + " batch for transaction " + txId + " on node " + node
+                    + " answered " + response.statusCode() + ": " + response.body(), true);
+            }
+            List<RemoteCallResult> results = objectMapper.readValue(response.body(), new TypeReference<List<RemoteCallResult>>() {
+            });
+            if (results.size() != calls.size()) {
+                throw new TccRemoteException(node, "Node " + node + " answered " + results.size() + " results for "
+                    + calls.size() + " calls", true);
+            }
+            outcome = "success";
+            log.debug("Sent {} batch of {} participants for transaction {} to node {}", phase, calls.size(), txId, node);
+            return results;
+        } finally {
+            metrics.stop(sample, "tcc.participant", "phase", phase, "bean", node, "method", "batch", "outcome", outcome);
+            TccMetrics.participantEvent(event, txId, phase, node, "batch", outcome);
+        }
+    }
+
+    private HttpResponse<String> send(String txId, String node, String path, Object body) {
+        String baseUrl = properties.getRemote().getNodes().get(node);
+        if (baseUrl == null) {
+            throw new TccRemoteException(node, "Unknown TCC node " + node + ", configure tcc.remote.nodes." + node, false);
+        }
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            String requestId = UUID.randomUUID().toString();
+            long timestamp = System.currentTimeMillis();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/tcc/participants/" + path))
+                .timeout(Duration.ofMillis(properties.getRemote().getRequestTimeoutMs()))
+                .header("Content-Type", "application/json")
+                .header(TX_ID_HEADER, Objects.requireNonNull(txId))
+                .header(RemoteCallSigner.TIMESTAMP_HEADER, String.valueOf(timestamp))
+                .header(RemoteCallSigner.REQUEST_ID_HEADER, requestId)
+                .header(RemoteCallSigner.SIGNATURE_HEADER, signer.sign(path, txId, requestId, timestamp, bytes))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bytes))
+                .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new TccRemoteException(node, "Call " + path + " to node " + node + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TccRemoteException(node, "Interrupted calling " + path + " on node " + node, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.tcc.remote;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.repository.TccBranchRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Removes the records of branches completed longer than tcc.remote.branch-retention-ms ago
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tcc.remote", name = "participant-endpoint-enabled", havingValue = "true")
+public class TccBranchCleaner {
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private TccBranchRepository branchRepository;
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 60 * 1000L)
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(properties.getRemote().getBranchRetentionMs()));
+        int deleted = branchRepository.deleteCompletedBefore(before);
+        if (deleted > 0) {
+            log.info("Removed {} completed TCC branches", deleted);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.tcc.remote;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.tcc.context.TccTransactionContext;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.entity.TccBranch;
+import com.example.tcc.manager.TccActionRegistry;
+import com.example.tcc.manager.TccMethodInvoker;
+import com.example.tcc.repository.TccBranchRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Participant side of remote participants: runs the tries, confirms and cancels of this node's
+ * {@code @TccAction}s for a coordinator on another node. Only registered TCC methods can be called,
+ * and only by nodes holding the shared secret, see {@link RemoteCallSigner}. Opt-in through
+ * {@code tcc.remote.participant-endpoint-enabled}.
+ *
+ * <p>Every try, confirm and cancel of a branch records the branch's status in {@link TccBranch},
+ * in the same local transaction as the call itself: a resent confirm or cancel is applied once,
+ * a cancel arriving before its try records the branch as cancelled, and a try arriving after that
+ * is rejected instead of freezing funds nobody will release. This needs the branch table and the
+ * TCC methods on the same DataSource.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/tcc/participants")
+@ConditionalOnProperty(prefix = "tcc.remote", name = "participant-endpoint-enabled", havingValue = "true")
+public class TccParticipantController {
+
+    @Autowired
+    private TccActionRegistry actionRegistry;
+    @Autowired
+    private RemoteCallSigner signer;
+    @Autowired
+    private TccBranchRepository branchRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static final TypeReference<List<RemoteCall>> CALLS = new TypeReference<>() {
+    };
+
+    // arguments arrive untyped, keep decimals exact until they are converted to the parameter types
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!signer.hasSecret()) {
+            throw new IllegalStateException("tcc.remote.participant-endpoint-enabled requires tcc.remote.shared-secret");
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Run a try in one local transaction with its branch record. 422 tells the coordinator that
+     * nothing was applied; any other failure, e.g. of the commit itself, leaves the outcome unknown.
+     * 409 rejects a replayed request.
+     */
+    @PostMapping("/try")
+    public ResponseEntity<String> tryAction(@RequestHeader(RemoteParticipantClient.TX_ID_HEADER) String txId,
+                                            @RequestHeader(name = RemoteCallSigner.TIMESTAMP_HEADER, required = false) String timestamp,
+                                            @RequestHeader(name = RemoteCallSigner.SIGNATURE_HEADER, required = false) String signature,
+                                            @RequestHeader(name = RemoteCallSigner.REQUEST_ID_HEADER, required = false) String requestId,
+                                            @RequestBody byte[] body) throws IOException {
+        if (!signer.verify("try", txId, requestId, timestamp, signature, body)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!signer.accept(requestId, timestamp)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        RemoteCall call = objectMapper.readValue(body, RemoteCall.class);
+        // the try's own failure, after which its local transaction was rolled back
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        String status;
+        try {
+            status = transactionTemplate.execute(tx -> {
+                if (call.branchId() != null) {
+                    TccBranch branch = branchRepository.findForUpdate(call.branchId()).orElse(null);
+                    if (branch != null) {
+                        return branch.getStatus();
+                    }
+                    branchRepository.saveAndFlush(branch(call.branchId(), txId, "TRIED"));
+                }
+                try {
+                    // the try sees the txId, e.g. to tag ledger entries, without registering a participant here
+                    TccTransactionContextHolder.runWith(TccTransactionContext.remoteTry(txId), () -> invokeTry(call));
+                } catch (Throwable e) {
+                    failure.set(e);
+                    tx.setRollbackOnly();
+                }
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a cancel, or a duplicate of this try, recorded the branch first
+            status = branchRepository.findById(call.branchId()).map(TccBranch::getStatus).orElse(null);
+            if (status == null) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(String.valueOf(e.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Remote try {}.{} for transaction {} has an unknown outcome", call.beanName(), call.method(), txId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(String.valueOf(e.getMessage()));
+        }
+        if ("CANCELED".equals(status)) {
+            log.warn("Remote try {}.{} for transaction {} arrived after its cancel", call.beanName(), call.method(), txId);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("Branch " + call.branchId() + " was already cancelled");
+        }
+        if (failure.get() != null) {
+            log.warn("Remote try {}.{} failed for transaction {}", call.beanName(), call.method(), txId, failure.get());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(String.valueOf(failure.get().getMessage()));
+        }
+        // status is null for a fresh try, TRIED or CONFIRMED for a duplicate
+        log.debug("Remote try {}.{} succeeded for transaction {}", call.beanName(), call.method(), txId);
+        return ResponseEntity.ok("OK");
+    }
+
+    @PostMapping("/confirm")
+    public ResponseEntity<List<RemoteCallResult>> confirm(@RequestHeader(RemoteParticipantClient.TX_ID_HEADER) String txId,
+                                                          @RequestHeader(name = RemoteCallSigner.TIMESTAMP_HEADER, required = false) String timestamp,
+                                                          @RequestHeader(name = RemoteCallSigner.SIGNATURE_HEADER, required = false) String signature,
+                                                          @RequestHeader(name = RemoteCallSigner.REQUEST_ID_HEADER, required = false) String requestId,
+                                                          @RequestBody byte[] body) throws IOException {
+        if (!signer.verify("confirm", txId, requestId, timestamp, signature, body)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!signer.accept(requestId, timestamp)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(runBatch(txId, "confirm", objectMapper.readValue(body, CALLS)));
+    }
+
+    @PostMapping("/cancel")
+    public ResponseEntity<List<RemoteCallResult>> cancel(@RequestHeader(RemoteParticipantClient.TX_ID_HEADER) String txId,
+                                                         @RequestHeader(name = RemoteCallSigner.TIMESTAMP_HEADER, required = false) String timestamp,
+                                                         @RequestHeader(name = RemoteCallSigner.SIGNATURE_HEADER, required = false) String signature,
+                                                         @RequestHeader(name = RemoteCallSigner.REQUEST_ID_HEADER, required = false) String requestId,
+                                                         @RequestBody byte[] body) throws IOException {
+        if (!signer.verify("cancel", txId, requestId, timestamp, signature, body)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!signer.accept(requestId, timestamp)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(runBatch(txId, "cancel", objectMapper.readValue(body, CALLS)));
+    }
+
+    /**
+     * Every call is attempted, each one reports its own outcome
+     */
+    private List<RemoteCallResult> runBatch(String txId, String phase, List<RemoteCall> calls) {
+        List<RemoteCallResult> results = new ArrayList<>(calls.size());
+        // as on the coordinator, confirms and cancels see the transaction they complete
+        TccTransactionContextHolder.runWith(new TccTransactionContext(txId), () -> {
+            for (RemoteCall call : calls) {
+                try {
+                    String error = transactionTemplate.execute(tx -> complete(txId, phase, call));
+                    if (error != null) {
+                        log.error("Remote {} {}.{} refused for transaction {}: {}", phase, call.beanName(), call.method(), txId, error);
+                    }
+                    results.add(new RemoteCallResult(error == null, error));
+                } catch (Throwable e) {
+                    log.error("Remote {} {}.{} failed for transaction {}", phase, call.beanName(), call.method(), txId, e);
+                    results.add(new RemoteCallResult(false, String.valueOf(e.getMessage())));
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Confirm or cancel one branch inside the caller's local transaction, unless its record
+     * shows that it is already done
+     * @return why the call was refused, null if the branch is now confirmed or cancelled
+     */
+    @SneakyThrows
+    private String complete(String txId, String phase, RemoteCall call) {
+        TccMethodInvoker invoker = actionRegistry.getInvoker(call.beanName(), call.method());
+        if (call.branchId() == null) {
+            // sent by a coordinator that predates branch ids
+            invoke(invoker, call.args(), false);
+            return null;
+        }
+        String done = "confirm".equals(phase) ? "CONFIRMED" : "CANCELED";
+        TccBranch branch = branchRepository.findForUpdate(call.branchId()).orElse(null);
+        if (branch == null) {
+            if ("confirm".equals(phase)) {
+                return "No try recorded for branch " + call.branchId();
+            }
+            // the try never applied, or has not arrived yet: keep it from applying later
+            branchRepository.save(branch(call.branchId(), txId, done));
+            return null;
+        }
+        if (done.equals(branch.getStatus())) {
+            // a resent batch
+            return null;
+        }
+        if (!"TRIED".equals(branch.getStatus())) {
+            return "Branch " + call.branchId() + " is " + branch.getStatus() + ", cannot " + phase + " it";
+        }
+        invoke(invoker, call.args(), invoker.getTransactionManager() == transactionManager);
+        branch.setStatus(done);
+        branch.setStatusTime(LocalDateTime.now());
+        return null;
+    }
+
+    @SneakyThrows
+    private void invokeTry(RemoteCall call) {
+        invoke(actionRegistry.getTryInvoker(call.beanName(), call.method()), call.args(), false);
+    }
+
+    /**
+     * @param joinTransaction call the bean behind its proxy, so the call joins the current local transaction
+     */
+    private void invoke(TccMethodInvoker invoker, Object[] args, boolean joinTransaction) throws Throwable {
+        Method method = invoker.getMethod();
+        Class<?>[] types = method.getParameterTypes();
+        Object[] values = args == null ? new Object[0] : args;
+        if (values.length != types.length) {
+            throw new IllegalArgumentException(method.getName() + " takes " + types.length + " arguments, got " + values.length);
+        }
+        Object[] converted = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            converted[i] = objectMapper.convertValue(values[i], types[i]);
+        }
+        if (joinTransaction) {
+            invoker.invokeInTransaction(converted);
+        } else {
+            invoker.invoke(converted);
+        }
+    }
+
+    private static TccBranch branch(String branchId, String txId, String status) {
+        TccBranch branch = new TccBranch();
+        branch.setBranchId(branchId);
+        branch.setTxId(txId);
+        branch.setStatus(status);
+        branch.setCreatedTime(LocalDateTime.now());
+        branch.setStatusTime(branch.getCreatedTime());
+        return branch;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.tcc.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.tcc.entity.TccBranch;
+
+import jakarta.persistence.LockModeType;
+
+public interface TccBranchRepository extends JpaRepository<TccBranch, String> {
+
+    /**
+     * Read a branch and hold its row lock until the surrounding transaction ends,
+     * so a confirm and a cancel of the same branch never both apply
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from TccBranch b where b.branchId = :branchId")
+    Optional<TccBranch> findForUpdate(@Param("branchId") String branchId);
+
+    /**
+     * Forget confirmed and cancelled branches; a TRIED branch is kept until its confirm or cancel arrives
+     * @return number of deleted branches
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from TccBranch b where b.status in ('CONFIRMED', 'CANCELED') and b.statusTime < :before")
+    int deleteCompletedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,26 @@
+package com.example.tcc.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.tcc.entity.TccCoordinatorInstance;
+
+public interface TccCoordinatorInstanceRepository extends JpaRepository<TccCoordinatorInstance, String> {
+
+    /**
+     * @return ids of the instances that sent a heartbeat after the cutoff
+     */
+    @Query("select i.instanceId from TccCoordinatorInstance i where i.heartbeatTime > :since order by i.instanceId")
+    List<String> findLive(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TccCoordinatorInstance i where i.heartbeatTime <= :before")
+    int deleteStale(@Param("before") LocalDateTime before);
+}
@@ -1,8 +1,91 @@
 package com.example.tcc.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.tcc.entity.TccLog;
 
 public interface TccLogRepository extends JpaRepository<TccLog, String> {
+
+    /**
+     * Compare-and-set the status of a transaction
+     * @param txId
+     * @param expected
+     * @param status
+     * @param statusTime when the status changed
+     * @return number of updated rows, 0 if the transaction is not in the expected status
+     */
+    @Modifying
+    @Transactional
+    @Query("update TccLog t set t.status = :status, t.statusTime = :statusTime where t.txId = :txId and t.status = :expected")
+    int updateStatus(@Param("txId") String txId, @Param("expected") String expected, @Param("status") String status,
+                     @Param("statusTime") LocalDateTime statusTime);
+
+    /**
+     * Transactions that have been in a status since before the cutoff and are due for a retry, oldest first,
+     * served by idx_tcc_log_status_changed. Rows written before statusTime existed count from createdTime;
+     * their null statusTime sorts first, they are the oldest anyway. The txId tie-break is the primary key
+     * every index entry carries, so the order stays deterministic without a sort.
+     */
+    @Query("select t from TccLog t where t.status = :status"
+        + " and (t.statusTime < :changedBefore or (t.statusTime is null and t.createdTime < :changedBefore))"
+        + " and (t.nextRetryTime is null or t.nextRetryTime <= :now) order by t.statusTime, t.txId")
+    List<TccLog> findRecoverable(@Param("status") String status, @Param("changedBefore") LocalDateTime changedBefore,
+                                 @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * As {@link #findRecoverable}, restricted to the given partitions. Rows written before partitioning
+     * have no partitionKey and belong to partition 0.
+     * @param partitions tcc.partitioning.partitions
+     * @param owned partitions to scan
+     */
+    @Query("select t from TccLog t where t.status = :status"
+        + " and (t.statusTime < :changedBefore or (t.statusTime is null and t.createdTime < :changedBefore))"
+        + " and (t.nextRetryTime is null or t.nextRetryTime <= :now)"
+        + " and mod(coalesce(t.partitionKey, 0), :partitions) in :owned order by t.statusTime, t.txId")
+    List<TccLog> findRecoverableInPartitions(@Param("status") String status, @Param("changedBefore") LocalDateTime changedBefore,
+                                             @Param("now") LocalDateTime now, @Param("partitions") int partitions,
+                                             @Param("owned") Collection<Integer> owned, Pageable pageable);
+
+    /**
+     * Claim a transaction for one recovery attempt, pushing its next retry time out
+     * @return 1 if claimed, 0 if another worker got there first
+     */
+    @Modifying
+    @Transactional
+    @Query("update TccLog t set t.retryCount = coalesce(t.retryCount, 0) + 1, t.nextRetryTime = :nextRetryTime"
+        + " where t.txId = :txId and t.status = :status and (t.nextRetryTime is null or t.nextRetryTime <= :now)")
+    int claim(@Param("txId") String txId, @Param("status") String status,
+              @Param("now") LocalDateTime now, @Param("nextRetryTime") LocalDateTime nextRetryTime);
+
+    /**
+     * Hold a transaction off recovery until the given time without counting a recovery attempt,
+     * under the same guard as {@link #claim}
+     * @return 1 if leased, 0 if recovery holds it
+     */
+    @Modifying
+    @Transactional
+    @Query("update TccLog t set t.nextRetryTime = :until"
+        + " where t.txId = :txId and t.status = :status and (t.nextRetryTime is null or t.nextRetryTime <= :now)")
+    int lease(@Param("txId") String txId, @Param("status") String status,
+              @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("update TccLog t set t.completedParticipants = :completed where t.txId = :txId")
+    int updateCompletedParticipants(@Param("txId") String txId, @Param("completed") String completed);
+
+    /**
+     * @return [status, count] per status
+     */
+    @Query("select t.status, count(t) from TccLog t group by t.status")
+    List<Object[]> countByStatus();
 }
@@ -0,0 +1,58 @@
+package com.example.tcc.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.tcc.entity.TccPartitionLease;
+
+public interface TccPartitionLeaseRepository extends JpaRepository<TccPartitionLease, Integer> {
+
+    /**
+     * Extend the leases an instance still holds, an expired lease may already have been taken over
+     * @return number of leases renewed
+     */
+    @Modifying
+    @Transactional
+    @Query("update TccPartitionLease l set l.expiresAt = :until where l.owner = :owner and l.expiresAt > :now")
+    int renew(@Param("owner") String owner, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Take a partition that is free or whose lease has expired
+     * @return 1 if acquired, 0 if another instance holds it
+     */
+    @Modifying
+    @Transactional
+    @Query("update TccPartitionLease l set l.owner = :owner, l.expiresAt = :until"
+        + " where l.partitionNo = :partitionNo and (l.owner is null or l.expiresAt <= :now)")
+    int acquire(@Param("partitionNo") int partitionNo, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Hand a partition back, so another instance can take it right away
+     */
+    @Modifying
+    @Transactional
+    @Query("update TccPartitionLease l set l.owner = null, l.expiresAt = null"
+        + " where l.partitionNo = :partitionNo and l.owner = :owner")
+    int release(@Param("partitionNo") int partitionNo, @Param("owner") String owner);
+
+    @Modifying
+    @Transactional
+    @Query("update TccPartitionLease l set l.owner = null, l.expiresAt = null where l.owner = :owner")
+    int releaseAll(@Param("owner") String owner);
+
+    @Query("select l.partitionNo from TccPartitionLease l where l.owner = :owner and l.expiresAt > :now"
+        + " and l.partitionNo < :partitions order by l.partitionNo")
+    List<Integer> findOwned(@Param("owner") String owner, @Param("now") LocalDateTime now,
+                            @Param("partitions") int partitions);
+
+    @Query("select l.partitionNo from TccPartitionLease l where (l.owner is null or l.expiresAt <= :now)"
+        + " and l.partitionNo < :partitions order by l.partitionNo")
+    List<Integer> findAvailable(@Param("now") LocalDateTime now, @Param("partitions") int partitions);
+}
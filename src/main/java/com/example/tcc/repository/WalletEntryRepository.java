@@ -0,0 +1,46 @@
+package com.example.tcc.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.tcc.entity.WalletEntry;
+
+public interface WalletEntryRepository extends JpaRepository<WalletEntry, Long> {
+
+    long countByTxIdAndOwnerIdAndType(String txId, String ownerId, String type);
+
+    long countByTxIdAndOwnerIdAndTypeAndFrozenDelta(String txId, String ownerId, String type, BigDecimal frozenDelta);
+
+    /**
+     * Balance moved by the entries not yet folded into the owner's wallet rows
+     * @param ownerId
+     * @return sum of their balance deltas, zero if there are none
+     */
+    @Query("select coalesce(sum(e.balanceDelta), 0) from WalletEntry e where e.ownerId = :ownerId and e.folded = false")
+    BigDecimal unfoldedBalance(@Param("ownerId") String ownerId);
+
+    /**
+     * @return [balance delta, frozen delta] of the owner's unfolded entries
+     */
+    @Query("select coalesce(sum(e.balanceDelta), 0), coalesce(sum(e.frozenDelta), 0) from WalletEntry e"
+        + " where e.ownerId = :ownerId and e.folded = false")
+    List<Object[]> unfoldedTotals(@Param("ownerId") String ownerId);
+
+    /**
+     * Owners with entries waiting for the compactor
+     */
+    @Query("select distinct e.ownerId from WalletEntry e where e.folded = false")
+    List<String> findUnfoldedOwners(Pageable pageable);
+
+    List<WalletEntry> findByOwnerIdAndFoldedFalseOrderById(String ownerId, Pageable pageable);
+
+    @Modifying
+    @Query("update WalletEntry e set e.folded = true where e.id in :ids")
+    int fold(@Param("ids") List<Long> ids);
+}
@@ -1,14 +1,109 @@
 package com.example.tcc.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.tcc.dto.WalletBalance;
 import com.example.tcc.entity.Wallet;
 
+import jakarta.persistence.LockModeType;
+
 public interface WalletRepository extends JpaRepository<Wallet, Integer> {
     /**
      * 
      * @param ownerId
+     * @param shardNo
      * @return Wallet   
      */
-    Wallet findByOwnerId(String ownerId);
+    Wallet findByOwnerIdAndShardNo(String ownerId, Integer shardNo);
+
+    /**
+     * 
+     * @param ownerId
+     * @return all shards of the owner
+     */
+    List<Wallet> findByOwnerIdOrderByShardNo(String ownerId);
+
+    boolean existsByOwnerId(String ownerId);
+
+    /**
+     * All shards of several owners in one query
+     * @param ownerIds
+     * @return the wallets, in no particular order
+     */
+    List<Wallet> findByOwnerIdIn(Collection<String> ownerIds);
+
+    /**
+     * Lock shard 0 of an owner, ledger mode serializes the owner's debits and compactions on it
+     * @param ownerId
+     * @return Wallet, null if the owner has no wallet
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from Wallet w where w.ownerId = :ownerId and w.shardNo = 0")
+    Wallet lockForLedger(@Param("ownerId") String ownerId);
+
+    @Query("select coalesce(sum(w.balance), 0) from Wallet w where w.ownerId = :ownerId")
+    BigDecimal sumBalance(@Param("ownerId") String ownerId);
+
+    /**
+     * Aggregate over all shards of an owner
+     * @param ownerId
+     * @return WalletBalance, null if the owner has no wallet
+     */
+    @Query("select new com.example.tcc.dto.WalletBalance(w.ownerId, sum(w.balance), sum(w.frozenBalance), count(w))"
+        + " from Wallet w where w.ownerId = :ownerId group by w.ownerId")
+    WalletBalance getBalance(@Param("ownerId") String ownerId);
+
+    /**
+     * Fold compacted ledger deltas into a wallet row
+     */
+    @Modifying
+    @Query("update Wallet w set w.balance = w.balance + :balanceDelta, w.frozenBalance = w.frozenBalance + :frozenDelta"
+        + " where w.id = :id")
+    int applyDeltas(@Param("id") Integer id, @Param("balanceDelta") BigDecimal balanceDelta,
+                    @Param("frozenDelta") BigDecimal frozenDelta);
+
+    /*
+     * Guarded single-statement balance movements on one shard, by primary key. Each returns the
+     * number of updated rows: 0 means the guard failed (or the row does not exist), nothing is changed.
+     */
+
+    /**
+     * balance -> frozenBalance, if balance covers the amount
+     */
+    @Modifying
+    @Query("update Wallet w set w.balance = w.balance - :amount, w.frozenBalance = w.frozenBalance + :amount"
+        + " where w.id = :id and w.balance >= :amount")
+    int freeze(@Param("id") int id, @Param("amount") BigDecimal amount);
+
+    /**
+     * frozenBalance -> balance, if frozenBalance covers the amount
+     */
+    @Modifying
+    @Query("update Wallet w set w.frozenBalance = w.frozenBalance - :amount, w.balance = w.balance + :amount"
+        + " where w.id = :id and w.frozenBalance >= :amount")
+    int unfreeze(@Param("id") int id, @Param("amount") BigDecimal amount);
+
+    /**
+     * frozenBalance - amount, if frozenBalance covers the amount
+     */
+    @Modifying
+    @Query("update Wallet w set w.frozenBalance = w.frozenBalance - :amount"
+        + " where w.id = :id and w.frozenBalance >= :amount")
+    int releaseFrozen(@Param("id") int id, @Param("amount") BigDecimal amount);
+
+    /**
+     * frozenBalance + amount
+     */
+    @Modifying
+    @Query("update Wallet w set w.frozenBalance = w.frozenBalance + :amount"
+        + " where w.id = :id")
+    int addFrozen(@Param("id") int id, @Param("amount") BigDecimal amount);
 }
@@ -1,25 +1,70 @@
 package com.example.tcc.service;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.dto.BatchPaymentResult;
+import com.example.tcc.dto.Transfer;
+import com.example.tcc.manager.TccTryExecutor;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class PaymentService {
     @Autowired
     private WalletService walletService;
+    @Autowired
+    private TccTryExecutor tryExecutor;
+    @Autowired
+    private WalletIdCache walletIdCache;
 
     @TccGlobalTransaction
     public void processPayment(String userId, String merchantId, BigDecimal amount){
-        //
-        System.out.println("Processing payment of " + amount + " from user " + userId + " to merchant " + merchantId);
-        walletService.tryDeduct(userId, amount);
-        walletService.tryCredit(merchantId, amount);
+        log.debug("Processing payment of {} from user {} to merchant {}", amount, userId, merchantId);
+        walletIdCache.prefetch(List.of(userId, merchantId));
+        // both legs touch different wallets, so their tries overlap
+        tryExecutor.runAll(
+            () -> walletService.tryDeduct(userId, amount),
+            () -> walletService.tryCredit(merchantId, amount));
+        // the aspect commits once this returns
+    }
 
-        System.out.println("Payment processed successfully");
-        System.out.println("wait Aop to commit");
+    /**
+     * Pay a batch of transfers in one global transaction. Amounts are netted per owner,
+     * so every wallet is tried, confirmed or cancelled once per batch; owners go in sorted order.
+     * Invalid transfers are rejected and left out of the batch.
+     * @param transfers
+     * @return BatchPaymentResult, the batch commits after it is returned
+     */
+    @TccGlobalTransaction
+    public BatchPaymentResult processPayments(List<Transfer> transfers) {
+        Map<String, BigDecimal> net = new TreeMap<>();
+        for (Transfer transfer : transfers) {
+            if (transfer.validate() == null) {
+                net.merge(transfer.userId(), transfer.amount().negate(), BigDecimal::add);
+                net.merge(transfer.merchantId(), transfer.amount(), BigDecimal::add);
+            }
+        }
+        walletIdCache.prefetch(net.keySet());
+        // debits first, so a shortfall fails the batch before any credit is tried
+        net.forEach((ownerId, amount) -> {
+            if (amount.signum() < 0) {
+                walletService.tryDeduct(ownerId, amount.negate());
+            }
+        });
+        net.forEach((ownerId, amount) -> {
+            if (amount.signum() > 0) {
+                walletService.tryCredit(ownerId, amount);
+            }
+        });
+        return BatchPaymentResult.of(TccTransactionContextHolder.getTxId(), "COMPLETED", transfers, null);
     }
 }
@@ -0,0 +1,104 @@
+package com.example.tcc.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.WalletProperties;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.repository.WalletRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounded LRU of ownerId -> wallet row ids by shard, so balance movements update by primary key
+ * instead of resolving (ownerId, shardNo) on every try, confirm and cancel. An entry with fewer
+ * shards than configured is reloaded, one whose rows were deleted is evicted by the wallet service
+ * once no row matches. Owners without a wallet are not cached.
+ */
+@Component
+public class WalletIdCache {
+
+    private static final int[] NONE = new int[0];
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletProperties walletProperties;
+
+    private Map<String, int[]> ids;
+
+    @PostConstruct
+    public void init() {
+        int capacity = walletProperties.getIdCacheSize();
+        ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param ownerId
+     * @return ids of the owner's wallet rows in shardNo order, empty if the owner has no wallet
+     */
+    public int[] get(String ownerId) {
+        int[] cached = cached(ownerId);
+        if (cached != null) {
+            return cached;
+        }
+        return put(ownerId, walletRepository.findByOwnerIdOrderByShardNo(ownerId));
+    }
+
+    /**
+     * Resolve the owners a global transaction is about to touch with one query,
+     * so its tries, confirms and cancels find them cached
+     * @param ownerIds
+     */
+    public void prefetch(Collection<String> ownerIds) {
+        List<String> missing = new ArrayList<>(ownerIds.size());
+        for (String ownerId : ownerIds) {
+            if (cached(ownerId) == null) {
+                missing.add(ownerId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<String, List<Wallet>> byOwner = new HashMap<>();
+        for (Wallet wallet : walletRepository.findByOwnerIdIn(missing)) {
+            byOwner.computeIfAbsent(wallet.getOwnerId(), k -> new ArrayList<>()).add(wallet);
+        }
+        byOwner.forEach(this::put);
+    }
+
+    public synchronized void evict(String ownerId) {
+        ids.remove(ownerId);
+    }
+
+    private synchronized int[] cached(String ownerId) {
+        int[] cached = ids.get(ownerId);
+        return cached == null || cached.length < walletProperties.shardCount(ownerId) ? null : cached;
+    }
+
+    private int[] put(String ownerId, List<Wallet> wallets) {
+        if (wallets.isEmpty()) {
+            return NONE;
+        }
+        int[] shardIds = wallets.stream()
+            .sorted((a, b) -> Integer.compare(a.getShardNo(), b.getShardNo()))
+            .mapToInt(Wallet::getId)
+            .toArray();
+        synchronized (this) {
+            ids.put(ownerId, shardIds);
+        }
+        return shardIds;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.tcc.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.tcc.config.WalletProperties;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.dto.WalletBalance;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.entity.WalletEntry;
+import com.example.tcc.repository.WalletEntryRepository;
+import com.example.tcc.repository.WalletRepository;
+
+/**
+ * Ledger mode of {@link WalletService}: a movement inserts a {@link WalletEntry} tagged with the txId
+ * instead of updating the wallet row. The wallet rows are the snapshot, the balance is the snapshot
+ * plus the unfolded entries, and {@link WalletLedgerCompactor} folds entries into the snapshot.
+ *
+ * <p>Only a debit needs to read the balance; it locks the owner's shard 0 row for that, so credits,
+ * confirms and cancels are plain inserts that never wait on a hot wallet.
+ *
+ * <p>A global transaction may try the same owner more than once, e.g. through a nested
+ * transaction, so entries are numbered per (txId, owner, type). Confirms and cancels cannot tell
+ * which try they belong to, they are matched by amount instead: a confirm of amount X requires a
+ * try of X and is skipped once every try of X has its confirm, which makes repeated
+ * confirms/cancels from recovery harmless. Tries of the same amount are interchangeable, so it does
+ * not matter which of them a confirm is counted against. Movements of one owner in the same global
+ * transaction, e.g. concurrent tries or confirms of one ordering group, take turns on this node until
+ * their local transaction ends, so each one numbers its entry after the previous one committed.
+ * What is left for the unique key is a confirm/cancel repeated by recovery on another node while the
+ * first one is still running; the loser fails and is retried like any other failed phase, then
+ * finds the phase done.
+ *
+ * <p>Movements join the caller's local transaction.
+ */
+@Component
+public class WalletLedger {
+
+    private static final BigDecimal ZERO = BigDecimal.ZERO;
+
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletEntryRepository walletEntryRepository;
+    @Autowired
+    private WalletProperties walletProperties;
+
+    // txId:ownerId -> turn of the local transaction moving that owner for that global transaction
+    private final Map<String, MovementLock> movementLocks = new ConcurrentHashMap<>();
+
+    private static class MovementLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        // threads holding or waiting for the lock, guarded by the map's compute
+        private int users;
+    }
+
+    /**
+     * balance -> frozen, if the balance covers the amount
+     */
+    public void freeze(String ownerId, BigDecimal amount) {
+        awaitTurn(txId(), ownerId);
+        if (walletRepository.lockForLedger(ownerId) == null) {
+            throw new RuntimeException("Wallet not found for user " + ownerId);
+        }
+        // read under the lock, so every earlier debit of the owner is visible
+        BigDecimal balance = walletRepository.sumBalance(ownerId).add(walletEntryRepository.unfoldedBalance(ownerId));
+        if (balance.compareTo(amount) < 0) {
+            throw new RuntimeException("Insufficient balance");
+        }
+        insert(ownerId, "FREEZE", amount.negate(), amount);
+    }
+
+    /**
+     * frozen -> gone, a confirmed deduct
+     */
+    public void debit(String ownerId, BigDecimal amount) {
+        complete(ownerId, "FREEZE", "DEBIT", ZERO, amount.negate(), "No frozen balance to confirm");
+    }
+
+    /**
+     * frozen -> balance, a cancelled deduct
+     */
+    public void release(String ownerId, BigDecimal amount) {
+        complete(ownerId, "FREEZE", "RELEASE", amount, amount.negate(), "No frozen balance to cancel");
+    }
+
+    /**
+     * nothing -> frozen, an incoming credit held until confirm
+     */
+    public void pendingCredit(String ownerId, BigDecimal amount) {
+        awaitTurn(txId(), ownerId);
+        if (!walletRepository.existsByOwnerId(ownerId)) {
+            throw new RuntimeException("Wallet not found for user " + ownerId);
+        }
+        insert(ownerId, "PENDING_CREDIT", ZERO, amount);
+    }
+
+    /**
+     * frozen -> balance, a confirmed credit
+     */
+    public void credit(String ownerId, BigDecimal amount) {
+        complete(ownerId, "PENDING_CREDIT", "CREDIT", amount, amount.negate(), "No frozen balance to confirm");
+    }
+
+    /**
+     * frozen -> gone, a cancelled credit
+     */
+    public void cancelCredit(String ownerId, BigDecimal amount) {
+        complete(ownerId, "PENDING_CREDIT", "CANCEL_CREDIT", ZERO, amount.negate(), "No frozen balance to cancel");
+    }
+
+    /**
+     * Snapshot plus unfolded entries, the caller's transaction must read both from one snapshot
+     * @param ownerId
+     * @return WalletBalance, null if the owner has no wallet
+     */
+    public WalletBalance getBalance(String ownerId) {
+        WalletBalance snapshot = walletRepository.getBalance(ownerId);
+        if (snapshot == null) {
+            return null;
+        }
+        Object[] unfolded = walletEntryRepository.unfoldedTotals(ownerId).get(0);
+        return new WalletBalance(ownerId, snapshot.balance().add((BigDecimal) unfolded[0]),
+            snapshot.frozenBalance().add((BigDecimal) unfolded[1]), snapshot.shards());
+    }
+
+    /**
+     * Fold the oldest unfolded entries of an owner into its shard 0 row. It holds the same lock as
+     * debits and flags exactly the entries it summed, so entries of local transactions that had
+     * not committed yet stay unfolded until a later pass.
+     * @param ownerId
+     * @return number of entries folded
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int compact(String ownerId) {
+        Wallet snapshot = walletRepository.lockForLedger(ownerId);
+        if (snapshot == null) {
+            return 0;
+        }
+        List<WalletEntry> entries = walletEntryRepository.findByOwnerIdAndFoldedFalseOrderById(ownerId,
+            PageRequest.of(0, walletProperties.getLedger().getCompactionBatchSize()));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        BigDecimal balanceDelta = ZERO;
+        BigDecimal frozenDelta = ZERO;
+        for (WalletEntry entry : entries) {
+            balanceDelta = balanceDelta.add(entry.getBalanceDelta());
+            frozenDelta = frozenDelta.add(entry.getFrozenDelta());
+        }
+        walletRepository.applyDeltas(snapshot.getId(), balanceDelta, frozenDelta);
+        walletEntryRepository.fold(entries.stream().map(WalletEntry::getId).toList());
+        return entries.size();
+    }
+
+    private void complete(String ownerId, String tryType, String type, BigDecimal balanceDelta, BigDecimal frozenDelta,
+                          String missingMessage) {
+        String txId = txId();
+        awaitTurn(txId, ownerId);
+        // the try froze the amount, every completion releases it from frozen
+        long tries = walletEntryRepository.countByTxIdAndOwnerIdAndTypeAndFrozenDelta(txId, ownerId, tryType, frozenDelta.negate());
+        if (tries == 0) {
+            throw new RuntimeException(missingMessage);
+        }
+        if (walletEntryRepository.countByTxIdAndOwnerIdAndTypeAndFrozenDelta(txId, ownerId, type, frozenDelta) >= tries) {
+            return;
+        }
+        insert(ownerId, type, balanceDelta, frozenDelta);
+    }
+
+    private void insert(String ownerId, String type, BigDecimal balanceDelta, BigDecimal frozenDelta) {
+        WalletEntry entry = new WalletEntry();
+        entry.setOwnerId(ownerId);
+        entry.setTxId(txId());
+        entry.setType(type);
+        entry.setSeq((int) walletEntryRepository.countByTxIdAndOwnerIdAndType(entry.getTxId(), ownerId, type));
+        entry.setBalanceDelta(balanceDelta);
+        entry.setFrozenDelta(frozenDelta);
+        entry.setCreatedTime(LocalDateTime.now());
+        walletEntryRepository.save(entry);
+    }
+
+    /**
+     * Wait until no other local transaction moves the owner for the same global transaction, and
+     * hold the turn until this local transaction ends. A transaction that already holds it, e.g.
+     * a shared local confirm, goes on.
+     */
+    private void awaitTurn(String txId, String ownerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Ledger movements must run in a local transaction");
+        }
+        String key = txId + ":" + ownerId;
+        MovementLock movementLock = movementLocks.compute(key, (k, existing) -> {
+            MovementLock joined = existing == null ? new MovementLock() : existing;
+            joined.users++;
+            return joined;
+        });
+        if (movementLock.lock.isHeldByCurrentThread()) {
+            leave(key);
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = movementLock.lock.tryLock(walletProperties.getLedger().getMovementLockTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            leave(key);
+            throw new RuntimeException("Timed out waiting for another movement of " + ownerId + " in transaction " + txId);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                movementLock.lock.unlock();
+                leave(key);
+            }
+        });
+    }
+
+    private void leave(String key) {
+        movementLocks.computeIfPresent(key, (k, movementLock) -> --movementLock.users == 0 ? null : movementLock);
+    }
+
+    private static String txId() {
+        String txId = TccTransactionContextHolder.getTxId();
+        if (txId == null) {
+            throw new IllegalStateException("Ledger movements must run within a TCC transaction");
+        }
+        return txId;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.tcc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.WalletProperties;
+import com.example.tcc.repository.WalletEntryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically folds ledger entries into the wallet rows, so a balance read or a debit
+ * only sums the entries written since the last pass
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.ledger", name = "enabled", havingValue = "true")
+public class WalletLedgerCompactor {
+
+    @Autowired
+    private WalletLedger walletLedger;
+    @Autowired
+    private WalletEntryRepository walletEntryRepository;
+    @Autowired
+    private WalletProperties walletProperties;
+
+    @Scheduled(fixedDelayString = "${wallet.ledger.compaction-interval-ms:5000}")
+    public void compact() {
+        int folded = 0;
+        for (String ownerId : walletEntryRepository.findUnfoldedOwners(
+                PageRequest.of(0, walletProperties.getLedger().getCompactionBatchSize()))) {
+            try {
+                folded += walletLedger.compact(ownerId);
+            } catch (Exception e) {
+                log.warn("Could not compact the ledger of {}", ownerId, e);
+            }
+        }
+        if (folded > 0) {
+            log.debug("Folded {} ledger entries", folded);
+        }
+    }
+}
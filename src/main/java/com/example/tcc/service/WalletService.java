@@ -1,86 +1,209 @@
 package com.example.tcc.service;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.tcc.anno.TccAction;
+import com.example.tcc.config.WalletProperties;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.dto.WalletBalance;
 import com.example.tcc.entity.Wallet;
 import com.example.tcc.repository.WalletRepository;
 
+import lombok.extern.slf4j.Slf4j;
 
+
+/**
+ * Wallet operations. Every balance movement is a single guarded UPDATE, the affected row count
+ * tells whether the funds were there, so concurrent payments cannot lose updates.
+ *
+ * <p>An owner listed in {@code wallet.shards} is split into K sub-account rows: credits land on
+ * one shard, debits are taken from one shard or spread over several, so concurrent payments to
+ * a hot owner no longer queue on a single row lock.
+ *
+ * <p>With {@code wallet.ledger.enabled} movements are recorded by {@link WalletLedger} as inserted
+ * entries instead, the wallet rows only change when the compactor folds entries into them.
+ */
+@Slf4j
 @Service("walletService")
 public class WalletService {
+
+    @FunctionalInterface
+    private interface ShardUpdate {
+        int apply(int id, BigDecimal amount);
+    }
     
     @Autowired
     private WalletRepository walletRepository;
+    @Autowired
+    private WalletProperties walletProperties;
+    @Autowired
+    private WalletLedger walletLedger;
+    @Autowired
+    private WalletIdCache walletIdCache;
 
     @TccAction(confirmMethod = "confirmDeduct", cancelMethod = "cancelDeduct")
     @Transactional
     public void tryDeduct(String userId,BigDecimal amount){
-        System.out.println("Trying to deduct " + amount + " from user " + userId);
-        Wallet wallet = walletRepository.findByOwnerId(userId);
-        if(wallet.getBalance().compareTo(amount) < 0){
-            throw new RuntimeException("Insufficient balance");
+        log.debug("Trying to deduct {} from user {}", amount, userId);
+        if (walletProperties.getLedger().isEnabled()) {
+            walletLedger.freeze(userId, amount);
+            return;
         }
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        wallet.setFrozenBalance(wallet.getFrozenBalance().add(amount));
-        walletRepository.save(wallet);
+        move(userId, amount, walletRepository::freeze, Wallet::getBalance, "Insufficient balance");
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void confirmDeduct(String userId,BigDecimal amount){
-        System.out.println("Confirming deduct " + amount + " from user " + userId);
-        Wallet wallet = walletRepository.findByOwnerId(userId);
-        //check
-        if(wallet.getFrozenBalance().compareTo(amount) >= 0){
-            wallet.setFrozenBalance(wallet.getFrozenBalance().subtract(amount));
-            walletRepository.save(wallet);
-        } else {
-            throw new RuntimeException("No frozen balance to confirm");
+        log.debug("Confirming deduct {} from user {}", amount, userId);
+        if (walletProperties.getLedger().isEnabled()) {
+            walletLedger.debit(userId, amount);
+            return;
         }
+        move(userId, amount, walletRepository::releaseFrozen, Wallet::getFrozenBalance, "No frozen balance to confirm");
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void cancelDeduct(String userId,BigDecimal amount){
-        System.out.println("Cancelling deduct " + amount + " from user " + userId);
-        Wallet wallet = walletRepository.findByOwnerId(userId);
-        if(wallet.getFrozenBalance().compareTo(amount) >= 0){
-            wallet.setFrozenBalance(wallet.getFrozenBalance().subtract(amount));
-            wallet.setBalance(wallet.getBalance().add(amount));
-            walletRepository.save(wallet);
-        } else {
-            throw new RuntimeException("No frozen balance to cancel");
+        log.debug("Cancelling deduct {} from user {}", amount, userId);
+        if (walletProperties.getLedger().isEnabled()) {
+            walletLedger.release(userId, amount);
+            return;
         }
+        move(userId, amount, walletRepository::unfreeze, Wallet::getFrozenBalance, "No frozen balance to cancel");
     }
 
 
     @TccAction(confirmMethod = "confirmCredit", cancelMethod = "cancelCredit")
     @Transactional
     public void tryCredit(String userId, BigDecimal amount){
-        System.out.println("Trying to credit " + amount + " to user " + userId);
-        Wallet wallet = walletRepository.findByOwnerId(userId);
-        wallet.setFrozenBalance(wallet.getFrozenBalance().add(amount));
-        walletRepository.save(wallet);
+        log.debug("Trying to credit {} to user {}", amount, userId);
+        if (walletProperties.getLedger().isEnabled()) {
+            walletLedger.pendingCredit(userId, amount);
+            return;
+        }
+        // the second attempt reloads the ids, in case the wallet was recreated
+        for (int attempt = 0; attempt < 2; attempt++) {
+            int[] ids = walletIdCache.get(userId);
+            int start = preferredShard(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (walletRepository.addFrozen(ids[(start + i) % ids.length], amount) == 1) {
+                    return;
+                }
+            }
+            walletIdCache.evict(userId);
+        }
+        throw new RuntimeException("Wallet not found for user " + userId);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void confirmCredit(String userId, BigDecimal amount){
-        System.out.println("Confirming credit " + amount + " to user " + userId);
-        Wallet wallet = walletRepository.findByOwnerId(userId);
-        wallet.setBalance(wallet.getBalance().add(amount));
-        wallet.setFrozenBalance(wallet.getFrozenBalance().subtract(amount));
-        walletRepository.save(wallet);
+        log.debug("Confirming credit {} to user {}", amount, userId);
+        if (walletProperties.getLedger().isEnabled()) {
+            walletLedger.credit(userId, amount);
+            return;
+        }
+        move(userId, amount, walletRepository::unfreeze, Wallet::getFrozenBalance, "No frozen balance to confirm");
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void cancelCredit(String userId, BigDecimal amount){
-        System.out.println("Cancelling credit " + amount + " to user " + userId);
-        Wallet wallet = walletRepository.findByOwnerId(userId);
-        wallet.setFrozenBalance(wallet.getFrozenBalance().subtract(amount));
-        walletRepository.save(wallet);
+        log.debug("Cancelling credit {} to user {}", amount, userId);
+        if (walletProperties.getLedger().isEnabled()) {
+            walletLedger.cancelCredit(userId, amount);
+            return;
+        }
+        move(userId, amount, walletRepository::releaseFrozen, Wallet::getFrozenBalance, "No frozen balance to cancel");
+    }
+
+    /**
+     * Balance and frozen balance of an owner over all of its shards
+     * @param ownerId
+     * @return WalletBalance, null if the owner has no wallet
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public WalletBalance getBalance(String ownerId) {
+        // in ledger mode wallet rows and entries are read from one snapshot, a compaction in between is invisible
+        return walletProperties.getLedger().isEnabled() ? walletLedger.getBalance(ownerId) : walletRepository.getBalance(ownerId);
+    }
+
+    /**
+     * Create the empty sub-accounts of a sharded owner next to its shard 0 wallet
+     * @param ownerId
+     */
+    @Transactional
+    public void ensureShards(String ownerId) {
+        List<Wallet> wallets = walletRepository.findByOwnerIdOrderByShardNo(ownerId);
+        if (wallets.isEmpty()) {
+            return;
+        }
+        for (int shardNo = wallets.size(); shardNo < walletProperties.shardCount(ownerId); shardNo++) {
+            Wallet shard = new Wallet();
+            shard.setOwnerId(ownerId);
+            shard.setShardNo(shardNo);
+            shard.setBalance(BigDecimal.ZERO);
+            shard.setFrozenBalance(BigDecimal.ZERO);
+            walletRepository.save(shard);
+        }
+        walletIdCache.evict(ownerId);
+    }
+
+    /**
+     * Apply a guarded movement for the whole amount on the first shard that accepts it,
+     * starting at this transaction's preferred shard, addressed by cached row ids. If no single shard covers the amount the
+     * shards are read once and the amount is spread over them; a shortfall throws and the
+     * surrounding local transaction rolls back the parts already moved.
+     */
+    private void move(String ownerId, BigDecimal amount, ShardUpdate update,
+                      Function<Wallet, BigDecimal> available, String insufficientMessage) {
+        int[] ids = walletIdCache.get(ownerId);
+        int start = preferredShard(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (update.apply(ids[(start + i) % ids.length], amount) == 1) {
+                return;
+            }
+        }
+        List<Wallet> wallets = walletRepository.findByOwnerIdOrderByShardNo(ownerId);
+        if (wallets.isEmpty()) {
+            throw new RuntimeException("Wallet not found for user " + ownerId);
+        }
+        BigDecimal remaining = amount;
+        boolean stale = !Arrays.equals(ids, wallets.stream().mapToInt(Wallet::getId).toArray());
+        if (stale) {
+            // the wallet was recreated, the rows just read are the current ones
+            walletIdCache.evict(ownerId);
+        }
+        if (wallets.size() > 1 || stale) {
+            for (Wallet wallet : wallets) {
+                BigDecimal part = available.apply(wallet).min(remaining);
+                if (part.signum() > 0 && update.apply(wallet.getId(), part) == 1) {
+                    remaining = remaining.subtract(part);
+                }
+                if (remaining.signum() == 0) {
+                    return;
+                }
+            }
+        }
+        throw new RuntimeException(insufficientMessage);
+    }
+
+    /**
+     * Shard to try first, spread by txId so concurrent transactions hit different rows
+     */
+    private int preferredShard(int shardCount) {
+        if (shardCount <= 1) {
+            return 0;
+        }
+        String txId = TccTransactionContextHolder.getTxId();
+        return txId == null ? ThreadLocalRandom.current().nextInt(shardCount) : Math.floorMod(txId.hashCode(), shardCount);
     }
 }
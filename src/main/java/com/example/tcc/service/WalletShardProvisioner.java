@@ -0,0 +1,31 @@
+package com.example.tcc.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.WalletProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the missing sub-accounts of every owner configured in {@code wallet.shards} at startup
+ */
+@Slf4j
+@Component
+public class WalletShardProvisioner implements ApplicationRunner {
+
+    @Autowired
+    private WalletProperties walletProperties;
+    @Autowired
+    private WalletService walletService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        walletProperties.getShards().forEach((ownerId, shards) -> {
+            walletService.ensureShards(ownerId);
+            log.info("Wallet of {} is split into {} shards", ownerId, shards);
+        });
+    }
+}
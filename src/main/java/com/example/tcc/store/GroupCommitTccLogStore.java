@@ -0,0 +1,277 @@
+package com.example.tcc.store;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.exception.TccException;
+import com.example.tcc.repository.TccLogRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces TccLog inserts, status and completed-participant updates and deletes of concurrent transactions into
+ * batched JDBC statements committed in one DB transaction. A flush starts as soon as records
+ * are waiting and takes up to {@code maxBatchSize} of them, lingering at most {@code maxDelayMs}
+ * for more. Callers block until the batch holding their record has committed, at most
+ * {@code writeTimeoutMs}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tcc.log-writer", name = "group-commit", havingValue = "true", matchIfMissing = true)
+public class GroupCommitTccLogStore implements TccLogStore {
+
+    private static final String INSERT_SQL =
+        "insert into tcc_log (tx_id, status, created_time, status_time, retry_count, partition_key, completed_participants)"
+        + " values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS_SQL =
+        "update tcc_log set status = ?, status_time = ? where tx_id = ? and status = ?";
+    private static final String UPDATE_COMPLETED_SQL =
+        "update tcc_log set completed_participants = ? where tx_id = ?";
+    private static final String DELETE_SQL =
+        "delete from tcc_log where tx_id = ?";
+
+    private enum Kind { INSERT, UPDATE_STATUS, UPDATE_COMPLETED, DELETE }
+
+    private record Op(Kind kind, Object[] args, CompletableFuture<Boolean> done) {
+    }
+
+    /**
+     * The driver reported {@link Statement#SUCCESS_NO_INFO} for a status CAS, rolls the batch back
+     */
+    private static class RowCountUnavailableException extends RuntimeException {
+    }
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    // reads are not queued, every write has committed by the time its caller returns
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    private TransactionTemplate transactionTemplate;
+    private Thread flusher;
+    private volatile boolean running;
+    /**
+     * cleared once the driver does not report batched row counts, status CASes then run one
+     * statement per record. Only touched by the flusher thread.
+     */
+    private boolean batchedRowCounts = true;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        flusher = new Thread(this::flushLoop, "tcc-log-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(5000);
+    }
+
+    @Override
+    public void insert(TccLog tccLog) {
+        LocalDateTime statusTime = tccLog.getStatusTime() == null ? tccLog.getCreatedTime() : tccLog.getStatusTime();
+        submit(Kind.INSERT, tccLog.getTxId(), tccLog.getStatus(), Timestamp.valueOf(tccLog.getCreatedTime()),
+            Timestamp.valueOf(statusTime),
+            tccLog.getRetryCount() == null ? 0 : tccLog.getRetryCount(), tccLog.getPartitionKey(),
+            tccLog.getCompletedParticipants());
+    }
+
+    @Override
+    public boolean updateStatus(String txId, String expected, String status) {
+        return submit(Kind.UPDATE_STATUS, status, Timestamp.valueOf(LocalDateTime.now()), txId, expected);
+    }
+
+    @Override
+    public void updateCompletedParticipants(String txId, String completed) {
+        submit(Kind.UPDATE_COMPLETED, completed, txId);
+    }
+
+    @Override
+    public void delete(String txId) {
+        submit(Kind.DELETE, txId);
+    }
+
+    @Override
+    public Optional<TccLog> find(String txId) {
+        return tccLogRepository.findById(txId);
+    }
+
+    private boolean submit(Kind kind, Object... args) {
+        Op op = new Op(kind, args, new CompletableFuture<>());
+        queue.add(op);
+        if (!running && queue.remove(op)) {
+            throw new TccException("TccLog writer is not running");
+        }
+        try {
+            return op.done().get(properties.getLogWriter().getWriteTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TccException("Interrupted while waiting for TccLog write", e);
+        } catch (TimeoutException e) {
+            if (queue.remove(op)) {
+                throw new TccException("TccLog " + kind + " timed out before it was flushed", e);
+            }
+            // already taken by the flusher, it may still commit; recovery settles the transaction
+            throw new TccException("TccLog " + kind + " timed out, outcome unknown", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new TccException("TccLog write failed", e.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        TccProperties.LogWriter config = properties.getLogWriter();
+        List<Op> batch = new ArrayList<>(config.getMaxBatchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Op first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, config.getMaxBatchSize() - batch.size());
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxDelayMs());
+                    while (batch.size() < config.getMaxBatchSize()) {
+                        long remaining = deadline - System.nanoTime();
+                        Op next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, config.getMaxBatchSize() - batch.size());
+                    }
+                } catch (InterruptedException e) {
+                    // shutdown, flush whatever has been taken and drain the rest
+                    queue.drainTo(batch);
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+        } catch (Throwable t) {
+            log.error("TccLog writer stopped", t);
+            throw t;
+        } finally {
+            // nobody is left to flush, fail the waiting callers instead of leaving them blocked
+            running = false;
+            queue.drainTo(batch);
+            TccException stopped = new TccException("TccLog writer stopped before the record was written");
+            batch.forEach(op -> op.done().completeExceptionally(stopped));
+        }
+    }
+
+    private void flush(List<Op> batch) {
+        try {
+            List<Boolean> results = executeInTransaction(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).done().complete(results.get(i));
+            }
+        } catch (Exception e) {
+            // one bad record must not fail its neighbours, retry them one by one
+            log.warn("Batched TccLog flush of {} records failed, retrying individually", batch.size(), e);
+            for (Op op : batch) {
+                try {
+                    op.done().complete(executeInTransaction(List.of(op)).get(0));
+                } catch (Exception single) {
+                    op.done().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private List<Boolean> executeInTransaction(List<Op> batch) {
+        try {
+            return transactionTemplate.execute(status -> execute(batch));
+        } catch (RowCountUnavailableException e) {
+            // rolled back, run it again with one statement per status CAS
+            log.warn("JDBC driver does not report batched update counts, TccLog status updates are no longer batched");
+            batchedRowCounts = false;
+            return transactionTemplate.execute(status -> execute(batch));
+        }
+    }
+
+    /**
+     * A transaction only has one write in flight at a time, so records of the same kind
+     * can be batched together without reordering writes of any single transaction.
+     */
+    private List<Boolean> execute(List<Op> batch) {
+        List<Boolean> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(Boolean.TRUE);
+        }
+        for (Kind kind : Kind.values()) {
+            List<Integer> positions = new ArrayList<>();
+            List<Object[]> args = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).kind() == kind) {
+                    positions.add(i);
+                    args.add(batch.get(i).args());
+                }
+            }
+            if (args.isEmpty()) {
+                continue;
+            }
+            if (kind != Kind.UPDATE_STATUS) {
+                jdbcTemplate.batchUpdate(sql(kind), args);
+            } else if (batchedRowCounts) {
+                // the count is the CAS result, whoever wins the status change owns the next phase
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, args);
+                for (int j = 0; j < counts.length; j++) {
+                    if (counts[j] == Statement.SUCCESS_NO_INFO) {
+                        throw new RowCountUnavailableException();
+                    }
+                    results.set(positions.get(j), counts[j] == 1);
+                }
+            } else {
+                for (int j = 0; j < args.size(); j++) {
+                    results.set(positions.get(j), jdbcTemplate.update(UPDATE_STATUS_SQL, args.get(j)) == 1);
+                }
+            }
+        }
+        return results;
+    }
+
+    private String sql(Kind kind) {
+        return switch (kind) {
+            case INSERT -> INSERT_SQL;
+            case UPDATE_STATUS -> UPDATE_STATUS_SQL;
+            case UPDATE_COMPLETED -> UPDATE_COMPLETED_SQL;
+            case DELETE -> DELETE_SQL;
+        };
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.tcc.store;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.codec.ParticipantCodec;
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of memory-mapped segment files on local disk. Participants are served
+ * from an in-memory index rebuilt by replaying the segments at startup.
+ *
+ * <p>Record layout: {@code [int length][int crc32][byte type][short txIdLength][txId][payload]},
+ * a zero length or a CRC mismatch marks the end of a segment (fresh or torn write).
+ *
+ * <p>Segments are only ever deleted oldest first, so a REMOVE record is never lost while the
+ * records it cancels still exist. When the oldest segment is kept alive by a few long-running
+ * transactions, they are rewritten into the active segment behind a RESET record.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tcc.participant-store", name = "type", havingValue = "journal")
+public class JournalParticipantStore implements ParticipantStore {
+
+    private static final byte APPEND = 1;
+    private static final byte REMOVE = 2;
+    private static final byte RESET = 3;
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        final Set<String> live = new HashSet<>();
+
+        Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private static class TxEntry {
+        final List<Participant> participants = new ArrayList<>();
+        final Set<Long> segments = new HashSet<>();
+        // replayed entries belong to an earlier run of this node and count as old
+        Instant firstAppend = Instant.EPOCH;
+    }
+
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private ParticipantCodec codec;
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<String, TxEntry> transactions = new HashMap<>();
+    private Path directory;
+    private Segment active;
+    private boolean compacting;
+    // a new segment was started since the last compaction
+    private boolean rolled;
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        directory = Paths.get(properties.getParticipantStore().getJournal().getDirectory());
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            Segment segment = map(file, segmentId(file), Files.size(file));
+            segments.put(segment.id, segment);
+            replay(segment);
+        }
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        log.info("Opened participant journal {} with {} segments and {} in-flight transactions",
+            directory.toAbsolutePath(), segments.size(), transactions.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        active.buffer.force();
+    }
+
+    @Override
+    public synchronized void append(String txId, List<Participant> participants) {
+        for (Participant participant : participants) {
+            appendRecord(txId, participant);
+        }
+        compact(rolled);
+    }
+
+    @Override
+    public synchronized List<Participant> load(String txId) {
+        TxEntry entry = transactions.get(txId);
+        return entry == null ? List.of() : new ArrayList<>(entry.participants);
+    }
+
+    @Override
+    public synchronized void remove(String txId) {
+        if (!transactions.containsKey(txId)) {
+            return;
+        }
+        write(REMOVE, txId, new byte[0]);
+        forget(txId);
+        compact(rolled);
+    }
+
+    @Override
+    public synchronized List<String> findOlderThan(Duration age, int limit) {
+        Instant before = Instant.now().minus(age);
+        return transactions.entrySet().stream()
+            .filter(e -> e.getValue().firstAppend.isBefore(before))
+            .limit(limit)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    private void appendRecord(String txId, Participant participant) {
+        Segment segment = write(APPEND, txId, codec.encode(participant));
+        TxEntry entry = transactions.computeIfAbsent(txId, k -> {
+            TxEntry created = new TxEntry();
+            created.firstAppend = Instant.now();
+            return created;
+        });
+        entry.participants.add(participant);
+        entry.segments.add(segment.id);
+        segment.live.add(txId);
+    }
+
+    private void forget(String txId) {
+        TxEntry entry = transactions.remove(txId);
+        if (entry != null) {
+            entry.segments.forEach(id -> segments.get(id).live.remove(txId));
+        }
+    }
+
+    /**
+     * Never compacts: relocating transactions here could fill the segment the record is about to
+     * go to, and would rewrite a transaction before this record is in its index. Callers compact
+     * once the record is indexed.
+     *
+     * @return the segment the record landed in
+     */
+    private Segment write(byte type, String txId, byte[] payload) {
+        byte[] tx = txId.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 2 + tx.length + payload.length;
+        int segmentSize = properties.getParticipantStore().getJournal().getSegmentSize();
+        if (HEADER_SIZE + bodyLength > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + bodyLength + " bytes exceeds the segment size");
+        }
+        if (active.buffer.remaining() < HEADER_SIZE + bodyLength) {
+            // a fresh segment always has room for one record
+            roll();
+        }
+        byte[] body = new byte[bodyLength];
+        body[0] = type;
+        body[1] = (byte) (tx.length >>> 8);
+        body[2] = (byte) tx.length;
+        System.arraycopy(tx, 0, body, 3, tx.length);
+        System.arraycopy(payload, 0, body, 3 + tx.length, payload.length);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        active.buffer.putInt(bodyLength).putInt((int) crc.getValue()).put(body);
+        if (properties.getParticipantStore().getJournal().isForceOnWrite()) {
+            active.buffer.force();
+        }
+        return active;
+    }
+
+    @SneakyThrows
+    private void roll() {
+        active.buffer.force();
+        active = createSegment(active.id + 1);
+        log.info("Rolled participant journal to segment {}", active.id);
+        rolled = true;
+    }
+
+    /**
+     * Delete the oldest segments that no in-flight transaction needs any more.
+     * With relocate, an oldest segment pinned by few transactions is first emptied by
+     * rewriting those transactions into the active segment. The segment active when compaction
+     * starts and those it rolls to are left alone, relocating out of them could go on forever.
+     */
+    @SneakyThrows
+    private void compact(boolean relocate) {
+        if (compacting) {
+            return;
+        }
+        compacting = true;
+        rolled = false;
+        long activeAtStart = active.id;
+        try {
+            int threshold = properties.getParticipantStore().getJournal().getCompactionLiveThreshold();
+            while (segments.size() > 1) {
+                Segment oldest = segments.firstEntry().getValue();
+                if (oldest.id >= activeAtStart) {
+                    break;
+                }
+                if (!oldest.live.isEmpty()) {
+                    if (!relocate || oldest.live.size() > threshold) {
+                        break;
+                    }
+                    for (String txId : new ArrayList<>(oldest.live)) {
+                        relocate(txId);
+                    }
+                }
+                segments.remove(oldest.id);
+                Files.deleteIfExists(oldest.path);
+                log.debug("Deleted participant journal segment {}", oldest.id);
+            }
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private void relocate(String txId) {
+        TxEntry relocated = transactions.get(txId);
+        forget(txId);
+        write(RESET, txId, new byte[0]);
+        for (Participant participant : relocated.participants) {
+            appendRecord(txId, participant);
+        }
+        transactions.get(txId).firstAppend = relocated.firstAppend;
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (bodyLength <= 3 || bodyLength > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] body = new byte[bodyLength];
+            buffer.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Torn record in participant journal segment {} at offset {}", segment.id, start);
+                buffer.position(start);
+                break;
+            }
+            int txLength = ((body[1] & 0xff) << 8) | (body[2] & 0xff);
+            String txId = new String(body, 3, txLength, StandardCharsets.UTF_8);
+            switch (body[0]) {
+                case APPEND -> {
+                    TxEntry entry = transactions.computeIfAbsent(txId, k -> new TxEntry());
+                    entry.participants.add(codec.decode(Arrays.copyOfRange(body, 3 + txLength, body.length)));
+                    entry.segments.add(segment.id);
+                    segment.live.add(txId);
+                }
+                case REMOVE, RESET -> forget(txId);
+                default -> log.warn("Unknown record type {} in participant journal segment {}", body[0], segment.id);
+            }
+        }
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = map(file, id, properties.getParticipantStore().getJournal().getSegmentSize());
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment map(Path file, long id, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(id, file, buffer);
+        }
+    }
+
+    private long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.tcc.store;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.repository.TccLogRepository;
+
+/**
+ * One repository call and one DB transaction per state transition
+ */
+@Component
+@ConditionalOnProperty(prefix = "tcc.log-writer", name = "group-commit", havingValue = "false")
+public class JpaTccLogStore implements TccLogStore {
+
+    @Autowired
+    private TccLogRepository tccLogRepository;
+
+    @Override
+    public void insert(TccLog tccLog) {
+        tccLogRepository.save(tccLog);
+    }
+
+    @Override
+    public boolean updateStatus(String txId, String expected, String status) {
+        return tccLogRepository.updateStatus(txId, expected, status, LocalDateTime.now()) == 1;
+    }
+
+    @Override
+    public void updateCompletedParticipants(String txId, String completed) {
+        tccLogRepository.updateCompletedParticipants(txId, completed);
+    }
+
+    @Override
+    public void delete(String txId) {
+        tccLogRepository.deleteById(txId);
+    }
+
+    @Override
+    public Optional<TccLog> find(String txId) {
+        return tccLogRepository.findById(txId);
+    }
+}
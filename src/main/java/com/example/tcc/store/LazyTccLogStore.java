@@ -0,0 +1,166 @@
+package com.example.tcc.store;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.entity.TccLog;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the TccLog of a young transaction in memory and only writes it through the underlying
+ * store when the transaction moves to CONFIRMING/CANCELING (inserted with that status directly)
+ * or outlives {@code tcc.log-writer.lazy-threshold-ms} (inserted as TRYING, for the timeout).
+ * A transaction that finishes in TRYING, e.g. a rollback without participants, costs no write.
+ *
+ * <p>Participants of a transaction that crashed before its row was written are found in the
+ * participant store and cancelled by {@code TccOrphanRecovery}.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "tcc.log-writer", name = "lazy", havingValue = "true")
+public class LazyTccLogStore implements TccLogStore {
+
+    @Autowired
+    private TccProperties properties;
+    // the JDBC or JPA store; a bean never autowires itself while another candidate exists
+    @Autowired
+    private TccLogStore delegate;
+
+    private final Map<String, TccLog> unpersisted = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void validateThreshold() {
+        long thresholdMs = properties.getLogWriter().getLazyThresholdMs();
+        if (thresholdMs >= properties.getRecovery().getTryingTimeoutMs()) {
+            throw new IllegalStateException("tcc.log-writer.lazy-threshold-ms (" + thresholdMs
+                + ") must be below tcc.recovery.trying-timeout-ms");
+        }
+    }
+
+    @Override
+    public void insert(TccLog tccLog) {
+        unpersisted.put(tccLog.getTxId(), tccLog);
+    }
+
+    @Override
+    public boolean updateStatus(String txId, String expected, String status) {
+        TccLog tccLog = unpersisted.get(txId);
+        if (tccLog != null) {
+            synchronized (tccLog) {
+                if (unpersisted.get(txId) == tccLog) {
+                    if (!expected.equals(tccLog.getStatus())) {
+                        return false;
+                    }
+                    tccLog.setStatus(status);
+                    tccLog.setStatusTime(LocalDateTime.now());
+                    try {
+                        delegate.insert(tccLog);
+                    } catch (DataIntegrityViolationException e) {
+                        // orphan recovery wrote the row first and is cancelling the transaction
+                        unpersisted.remove(txId, tccLog);
+                        return false;
+                    } catch (RuntimeException e) {
+                        tccLog.setStatus(expected);
+                        throw e;
+                    }
+                    unpersisted.remove(txId, tccLog);
+                    return true;
+                }
+            }
+        }
+        return delegate.updateStatus(txId, expected, status);
+    }
+
+    @Override
+    public void updateCompletedParticipants(String txId, String completed) {
+        TccLog tccLog = unpersisted.get(txId);
+        if (tccLog != null) {
+            synchronized (tccLog) {
+                if (unpersisted.get(txId) == tccLog) {
+                    tccLog.setCompletedParticipants(completed);
+                    return;
+                }
+            }
+        }
+        delegate.updateCompletedParticipants(txId, completed);
+    }
+
+    @Override
+    public void delete(String txId) {
+        TccLog tccLog = unpersisted.get(txId);
+        if (tccLog != null) {
+            synchronized (tccLog) {
+                if (unpersisted.remove(txId, tccLog)) {
+                    return;
+                }
+            }
+        }
+        delegate.delete(txId);
+    }
+
+    @Override
+    public Optional<TccLog> find(String txId) {
+        TccLog tccLog = unpersisted.get(txId);
+        if (tccLog != null) {
+            synchronized (tccLog) {
+                if (unpersisted.get(txId) == tccLog) {
+                    return Optional.of(tccLog);
+                }
+            }
+        }
+        return delegate.find(txId);
+    }
+
+    /**
+     * Insert a row right away, bypassing the in-memory stage
+     * @return false if the transaction already has a row
+     */
+    public boolean insertDurably(TccLog tccLog) {
+        try {
+            delegate.insert(tccLog);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the rows of transactions that outlived the threshold, so the TRYING timeout applies to them
+     */
+    @Scheduled(fixedDelayString = "${tcc.log-writer.lazy-threshold-ms:500}")
+    public void persistSlow() {
+        LocalDateTime threshold = LocalDateTime.now().minusNanos(properties.getLogWriter().getLazyThresholdMs() * 1_000_000);
+        for (TccLog tccLog : unpersisted.values()) {
+            if (!tccLog.getCreatedTime().isBefore(threshold)) {
+                continue;
+            }
+            synchronized (tccLog) {
+                if (unpersisted.get(tccLog.getTxId()) != tccLog) {
+                    continue;
+                }
+                try {
+                    delegate.insert(tccLog);
+                } catch (DataIntegrityViolationException e) {
+                    log.warn("Transaction {} already has a TccLog row", tccLog.getTxId());
+                } catch (RuntimeException e) {
+                    log.error("Could not persist TccLog of transaction {}, will retry", tccLog.getTxId(), e);
+                    continue;
+                }
+                unpersisted.remove(tccLog.getTxId(), tccLog);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.tcc.store;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.example.tcc.context.Participant;
+
+/**
+ * Where the coordinator keeps the participants of in-flight transactions until they are
+ * confirmed or cancelled. Selected with {@code tcc.participant-store.type}.
+ */
+public interface ParticipantStore {
+
+    /**
+     * Durably add participants to a transaction, in registration order, in one store round-trip
+     */
+    void append(String txId, List<Participant> participants);
+
+    /**
+     * Read back the participants of a transaction that is being recovered.
+     * Stores with an expiry keep the transaction alive for another retention period.
+     * @return the participants in registration order, empty if unknown
+     */
+    List<Participant> load(String txId);
+
+    /**
+     * Forget a finished transaction
+     */
+    void remove(String txId);
+
+    /**
+     * Transactions whose first participant was appended more than {@code age} ago, used to find
+     * transactions that hold participants but never got a TccLog row. Stores that cannot tell
+     * the age of an entry return nothing.
+     * @param age
+     * @param limit max transactions returned
+     * @return txIds
+     */
+    default List<String> findOlderThan(Duration age, int limit) {
+        return List.of();
+    }
+}
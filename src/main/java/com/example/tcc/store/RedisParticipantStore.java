@@ -0,0 +1,131 @@
+package com.example.tcc.store;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.codec.ParticipantCodec;
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Participants kept in a Redis list per transaction, shared by every coordinator node.
+ * Every key carries a TTL so that Redis memory stays bounded, recovery reads push it out again.
+ * A payment costs one pipelined append per flush (one if its tries share a local transaction,
+ * one per try if they run concurrently) plus the final remove.
+ *
+ * <p>The first append also scores the transaction with its creation time in one sorted set, so
+ * transactions that never got a TccLog row are found by score rather than by scanning the keys.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "tcc.participant-store", name = "type", havingValue = "redis", matchIfMissing = true)
+public class RedisParticipantStore implements ParticipantStore {
+
+    private static final String KEY_PREFIX = "tcc:tx:";
+    private static final String KEY_SUFFIX = ":participants";
+    // txId scored by the epoch millis of its first append
+    private static final String CREATED_KEY = "tcc:tx:created";
+
+    // fetch the list and extend its TTL in one round-trip
+    private static final byte[] LOAD_SCRIPT = ("local participants = redis.call('LRANGE', KEYS[1], 0, -1)\n"
+        + "if #participants > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end\n"
+        + "return participants").getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private TccProperties properties;
+    @Autowired
+    private ParticipantCodec codec;
+
+    @PostConstruct
+    public void validateTtl() {
+        TccProperties.Recovery recovery = properties.getRecovery();
+        long ttlMs = properties.getParticipantStore().getRedis().getTtlMs();
+        long horizonMs = Math.max(recovery.getTryingTimeoutMs(), recovery.getGracePeriodMs()) + recovery.getMaxBackoffMs();
+        if (ttlMs <= horizonMs) {
+            throw new IllegalStateException("tcc.participant-store.redis.ttl-ms (" + ttlMs
+                + ") must exceed the recovery horizon of " + horizonMs + " ms");
+        }
+    }
+
+    @Override
+    public void append(String txId, List<Participant> participants) {
+        byte[] key = key(txId).getBytes(StandardCharsets.UTF_8);
+        byte[][] values = new byte[participants.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = codec.encode(participants.get(i));
+        }
+        long ttlMs = properties.getParticipantStore().getRedis().getTtlMs();
+        byte[] member = txId.getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            pushAndExpire(connection, key, values, ttlMs);
+            // NX keeps the score of the first append
+            connection.zSetCommands().zAdd(CREATED_KEY.getBytes(StandardCharsets.UTF_8), now, member, ZAddArgs.ifNotExists());
+            return null;
+        });
+    }
+
+    @Override
+    public List<Participant> load(String txId) {
+        String redisKey = key(txId);
+        byte[] ttl = String.valueOf(properties.getParticipantStore().getRedis().getTtlMs()).getBytes(StandardCharsets.UTF_8);
+        List<byte[]> encoded = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.scriptingCommands()
+            .eval(LOAD_SCRIPT, ReturnType.MULTI, 1, redisKey.getBytes(StandardCharsets.UTF_8), ttl));
+        if(encoded == null || encoded.isEmpty()){
+            log.warn("No participants found for key: {}", redisKey);
+            return List.of();
+        }
+        return encoded.stream().map(codec::decode).collect(Collectors.toList());
+    }
+
+    @Override
+    public void remove(String txId) {
+        byte[] key = key(txId).getBytes(StandardCharsets.UTF_8);
+        byte[] member = txId.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().del(key);
+            connection.zSetCommands().zRem(CREATED_KEY.getBytes(StandardCharsets.UTF_8), member);
+            return null;
+        });
+    }
+
+    /**
+     * Oldest first by the time of the first append, recovery reads do not make a transaction
+     * younger. Entries older than the TTL are dropped first: an orphan's list is never read
+     * before it has a row, so it has expired by then.
+     */
+    @Override
+    public List<String> findOlderThan(Duration age, int limit) {
+        long now = System.currentTimeMillis();
+        long ttlMs = properties.getParticipantStore().getRedis().getTtlMs();
+        redisTemplate.opsForZSet().removeRangeByScore(CREATED_KEY, Double.NEGATIVE_INFINITY, now - ttlMs);
+        Set<String> txIds = redisTemplate.opsForZSet().rangeByScore(CREATED_KEY, now - ttlMs, now - age.toMillis(), 0, limit);
+        return txIds == null ? List.of() : List.copyOf(txIds);
+    }
+
+    private void pushAndExpire(RedisConnection connection, byte[] key, byte[][] values, long ttlMs) {
+        connection.listCommands().rPush(key, values);
+        connection.keyCommands().pExpire(key, ttlMs);
+    }
+
+    private String key(String txId) {
+        return KEY_PREFIX + txId + KEY_SUFFIX;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.tcc.store;
+
+import java.util.Optional;
+
+import com.example.tcc.entity.TccLog;
+
+/**
+ * Write path of the coordinator's TccLog state transitions, and the reads the coordinator
+ * makes of its own transactions, which may not have reached the database yet.
+ * Every write returns only once the change is durable.
+ */
+public interface TccLogStore {
+
+    void insert(TccLog tccLog);
+
+    /**
+     * Compare-and-set the status of a transaction
+     * @return true if the transaction was in the expected status and has been updated
+     */
+    boolean updateStatus(String txId, String expected, String status);
+
+    /**
+     * Record which participants of a partially failed phase are done
+     * @param txId
+     * @param completed comma-separated indexes into the participant store's order
+     */
+    void updateCompletedParticipants(String txId, String completed);
+
+    void delete(String txId);
+
+    Optional<TccLog> find(String txId);
+}
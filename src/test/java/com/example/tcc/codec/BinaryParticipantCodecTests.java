@@ -0,0 +1,60 @@
+package com.example.tcc.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.tcc.context.Participant;
+import com.example.tcc.manager.TccActionRegistry;
+
+class BinaryParticipantCodecTests {
+
+    private final BinaryParticipantCodec codec = codec();
+
+    @Test
+    void roundTripsCommonArgumentTypes() {
+        Object[] args = { "user-1", new BigDecimal("-12.345"), 42, -7L, true, 1.5d, 2.5f, (short) 3, (byte) 4, 'x',
+            new BigInteger("123456789012345678901234567890"), null, LocalDate.of(2024, 1, 31) };
+        Participant participant = new Participant("walletService", "confirmDeduct", "cancelDeduct", args, 2);
+
+        byte[] encoded = codec.encode(participant);
+        Participant decoded = codec.decode(encoded);
+
+        assertThat(decoded).isEqualTo(participant);
+        assertThat(encoded.length).isLessThan(new JacksonParticipantCodec().encode(participant).length);
+    }
+
+    @Test
+    void roundTripsRemoteParticipantsWithAndWithoutBranchId() {
+        Object[] args = { "user-1", new BigDecimal("5.00") };
+        Participant branch = new Participant("walletService", "confirmDeduct", "cancelDeduct", args, 0, "wallet", "branch-1");
+        Participant legacy = new Participant("walletService", "confirmDeduct", "cancelDeduct", args, 0, "wallet");
+
+        assertThat(codec.decode(codec.encode(branch))).isEqualTo(branch);
+        assertThat(codec.decode(codec.encode(legacy))).isEqualTo(legacy);
+    }
+
+    @Test
+    void decodesLegacyJsonEntries() {
+        String legacy = "{\"beanName\":\"walletService\",\"confirmMethod\":\"confirmCredit\",\"cancelMethod\":\"cancelCredit\","
+            + "\"args\":[[\"java.lang.String\",\"m1\"],[\"java.math.BigDecimal\",10.50]],"
+            + "\"parameterTypes\":[\"java.lang.String\",\"java.math.BigDecimal\"]}";
+
+        Participant decoded = codec.decode(legacy.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getConfirmMethod()).isEqualTo("confirmCredit");
+        assertThat(decoded.getArgs()).containsExactly("m1", new BigDecimal("10.50"));
+    }
+
+    private static BinaryParticipantCodec codec() {
+        BinaryParticipantCodec codec = new BinaryParticipantCodec();
+        ReflectionTestUtils.setField(codec, "actionRegistry", new TccActionRegistry());
+        return codec;
+    }
+}
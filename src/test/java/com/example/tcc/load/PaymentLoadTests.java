@@ -0,0 +1,259 @@
+package com.example.tcc.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccAction;
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.repository.WalletRepository;
+import com.example.tcc.service.PaymentService;
+import com.example.tcc.service.WalletService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives the payment flow from concurrent clients against H2 and the journal participant store,
+ * then checks that no money was created or lost. It takes about a minute and only runs when asked
+ * for, e.g. {@code mvn test -Dtest=PaymentLoadTests -Dload.enabled=true}. Sizes, skew and failure
+ * injection are system properties, e.g. {@code -Dload.payments=100000 -Dload.clients=64}.
+ * <ul>
+ * <li>load.hot-key-ratio - share of payments paid to the hot merchant-0</li>
+ * <li>load.overdraft-ratio - share of payments above the payer's balance, their try fails</li>
+ * <li>load.confirm-failure-ratio - share of payments with an extra participant whose confirm fails once</li>
+ * <li>load.http-ratio - share of payments sent through {@code POST /test}</li>
+ * </ul>
+ * The same test covers ledger mode with {@code -Dwallet.ledger.enabled=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import({ PaymentLoadTests.FlakyPayment.class, PaymentLoadTests.FlakyParticipant.class })
+class PaymentLoadTests {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Value("${load.users:2000}")
+    private int users;
+    @Value("${load.merchants:200}")
+    private int merchants;
+    @Value("${load.clients:16}")
+    private int clients;
+    @Value("${load.payments:4000}")
+    private int payments;
+    @Value("${load.hot-key-ratio:0.3}")
+    private double hotKeyRatio;
+    @Value("${load.overdraft-ratio:0.05}")
+    private double overdraftRatio;
+    @Value("${load.confirm-failure-ratio:0.02}")
+    private double confirmFailureRatio;
+    @Value("${load.http-ratio:0.1}")
+    private double httpRatio;
+    @Value("${load.seed:42}")
+    private long seed;
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private FlakyPayment flakyPayment;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Pays through {@link PaymentService} and adds a {@link FlakyParticipant},
+     * so the transaction is only completed by recovery
+     */
+    @Component
+    public static class FlakyPayment {
+
+        @Autowired
+        private PaymentService paymentService;
+        @Autowired
+        private FlakyParticipant flakyParticipant;
+
+        @TccGlobalTransaction
+        public void processPayment(String userId, String merchantId, BigDecimal amount) {
+            paymentService.processPayment(userId, merchantId, amount);
+            flakyParticipant.tryStep(TccTransactionContextHolder.getTxId());
+        }
+    }
+
+    /**
+     * Participant whose first confirm of every transaction fails
+     */
+    @Component
+    public static class FlakyParticipant {
+
+        private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+        @TccAction(confirmMethod = "confirmStep", cancelMethod = "cancelStep")
+        public void tryStep(String txId) {
+        }
+
+        public void confirmStep(String txId) {
+            if (failed.add(txId)) {
+                throw new IllegalStateException("Injected confirm failure for transaction " + txId);
+            }
+        }
+
+        public void cancelStep(String txId) {
+        }
+    }
+
+    @Test
+    void paymentsConserveMoney() throws Exception {
+        seedWallets();
+        BigDecimal totalBefore = total("balance + frozen_balance", "balance_delta + frozen_delta");
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            results.add(pool.submit(() -> runClient(client, succeeded, failed)));
+        }
+        long[] latencies = new long[0];
+        for (Future<long[]> result : results) {
+            long[] clientLatencies = result.get();
+            long[] merged = Arrays.copyOf(latencies, latencies.length + clientLatencies.length);
+            System.arraycopy(clientLatencies, 0, merged, latencies.length, clientLatencies.length);
+            latencies = merged;
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        log.info(String.format("payments=%d succeeded=%d failed=%d clients=%d throughput=%.1f/s p50=%.2fms p99=%.2fms p999=%.2fms",
+            latencies.length, succeeded.get(), failed.get(), clients, latencies.length / (elapsed / 1e9),
+            percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999)));
+
+        awaitRecovery();
+        assertThat(total("balance + frozen_balance", "balance_delta + frozen_delta")).isEqualByComparingTo(totalBefore);
+        assertThat(total("frozen_balance", "frozen_delta")).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from wallet where balance < 0 or frozen_balance < 0", Long.class))
+            .isZero();
+        assertThat(succeeded.get()).isPositive();
+    }
+
+    private long[] runClient(int client, AtomicInteger succeeded, AtomicInteger failed) {
+        Random random = new Random(seed + client);
+        int count = payments / clients + (client < payments % clients ? 1 : 0);
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            String userId = "user-" + random.nextInt(users);
+            String merchantId = "merchant-" + (random.nextDouble() < hotKeyRatio ? 0 : random.nextInt(merchants));
+            BigDecimal amount = random.nextDouble() < overdraftRatio
+                ? INITIAL_BALANCE.add(BigDecimal.ONE)
+                : BigDecimal.valueOf(1 + random.nextInt(1000), 2);
+            double mode = random.nextDouble();
+
+            long start = System.nanoTime();
+            boolean ok;
+            if (mode < httpRatio) {
+                String body = restTemplate.postForObject("/test?userId={u}&merchantId={m}&amount={a}", null, String.class,
+                    userId, merchantId, amount);
+                ok = body != null && !body.startsWith("Error");
+            } else {
+                ok = pay(mode < httpRatio + confirmFailureRatio, userId, merchantId, amount);
+            }
+            latencies[i] = System.nanoTime() - start;
+            (ok ? succeeded : failed).incrementAndGet();
+        }
+        return latencies;
+    }
+
+    private boolean pay(boolean flaky, String userId, String merchantId, BigDecimal amount) {
+        try {
+            if (flaky) {
+                flakyPayment.processPayment(userId, merchantId, amount);
+            } else {
+                paymentService.processPayment(userId, merchantId, amount);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void seedWallets() {
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            wallets.add(wallet("user-" + i, INITIAL_BALANCE));
+        }
+        for (int i = 0; i < merchants; i++) {
+            wallets.add(wallet("merchant-" + i, BigDecimal.ZERO));
+        }
+        walletRepository.saveAll(wallets);
+        walletService.ensureShards("merchant-0");
+    }
+
+    private static Wallet wallet(String ownerId, BigDecimal balance) {
+        Wallet wallet = new Wallet();
+        wallet.setOwnerId(ownerId);
+        wallet.setShardNo(0);
+        wallet.setBalance(balance);
+        wallet.setFrozenBalance(BigDecimal.ZERO);
+        return wallet;
+    }
+
+    /**
+     * Wait until recovery has completed every transaction left in CONFIRMING or CANCELING
+     */
+    private void awaitRecovery() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (jdbcTemplate.queryForObject("select count(*) from tcc_log", Long.class) > 0) {
+            assertThat(System.nanoTime()).as("transactions still open after 60s: %s",
+                jdbcTemplate.queryForList("select tx_id, status from tcc_log")).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Sum over the wallet rows plus, in ledger mode, the entries not yet folded into them
+     */
+    private BigDecimal total(String walletExpression, String entryExpression) {
+        // one statement, so a concurrent compaction cannot move entries between the two sums
+        Map<String, Object> row = jdbcTemplate.queryForMap("select (select coalesce(sum(" + walletExpression + "), 0) from wallet)"
+            + " + (select coalesce(sum(" + entryExpression + "), 0) from wallet_entry where folded = false) as total");
+        return new BigDecimal(row.get("total").toString());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.javapoet.ClassName;
+
+import com.example.tcc.anno.TccAction;
+import com.example.tcc.anno.TccRemoteAction;
+import com.example.tcc.dto.Transfer;
+import com.example.tcc.service.WalletService;
+
+class TccActionAotProcessorTests {
+
+    public static class RemoteClient {
+        @TccRemoteAction(node = "wallet", bean = "walletService", tryMethod = "pay", confirmMethod = "confirm", cancelMethod = "cancel")
+        public void pay(Transfer transfer) {
+        }
+    }
+
+    public static class MissingCancel {
+        @TccAction(confirmMethod = "confirm", cancelMethod = "cancel")
+        public void reserve(String id) {
+        }
+
+        public void confirm(String id) {
+        }
+    }
+
+    @Test
+    void registersTccMethodsAndJsonArgumentTypes() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("walletService", new RootBeanDefinition(WalletService.class));
+        beanFactory.registerBeanDefinition("remoteClient", new RootBeanDefinition(RemoteClient.class));
+
+        RuntimeHints hints = apply(new TccActionAotProcessor().processAheadOfTime(beanFactory));
+
+        for (String method : new String[] { "tryDeduct", "confirmDeduct", "cancelDeduct", "tryCredit", "confirmCredit", "cancelCredit" }) {
+            assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(WalletService.class.getMethod(method, String.class, BigDecimal.class)).invoke())
+                .accepts(hints);
+        }
+        assertThat(RuntimeHintsPredicates.reflection().onType(Transfer.class)).accepts(hints);
+    }
+
+    @Test
+    void missingPhaseMethodFailsTheBuild() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("missingCancel", new RootBeanDefinition(MissingCancel.class));
+
+        assertThatThrownBy(() -> new TccActionAotProcessor().processAheadOfTime(beanFactory))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("'cancel'");
+    }
+
+    private static RuntimeHints apply(BeanFactoryInitializationAotContribution contribution) {
+        DefaultGenerationContext generationContext = new DefaultGenerationContext(
+            new ClassNameGenerator(ClassName.get(TccActionAotProcessorTests.class)), new InMemoryGeneratedFiles());
+        contribution.applyTo(generationContext, null);
+        return generationContext.getRuntimeHints();
+    }
+}
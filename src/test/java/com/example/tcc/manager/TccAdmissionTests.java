@@ -0,0 +1,96 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.exception.TccRejectedException;
+import com.example.tcc.exception.TccTimeoutException;
+import com.example.tcc.support.RecordingParticipant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@Import({ TccAdmissionTests.LimitedTransactions.class, RecordingParticipant.class })
+class TccAdmissionTests {
+
+    @Autowired
+    private LimitedTransactions transactions;
+    @Autowired
+    private RecordingParticipant participant;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Component
+    public static class LimitedTransactions {
+
+        @Autowired
+        private RecordingParticipant participant;
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        // the bean is a proxy, like RecordingParticipant
+        public CountDownLatch entered() {
+            return entered;
+        }
+
+        public CountDownLatch release() {
+            return release;
+        }
+
+        @TccGlobalTransaction(maxInFlight = 1)
+        public void hold() throws InterruptedException {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+        }
+
+        @TccGlobalTransaction(timeout = 50)
+        public String slowTries() throws InterruptedException {
+            String txId = TccTransactionContextHolder.getTxId();
+            participant.reserve(txId);
+            Thread.sleep(100);
+            participant.reserve(txId);
+            return txId;
+        }
+    }
+
+    @Test
+    void shedsTransactionsOverTheMethodLimit() throws Exception {
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                transactions.hold();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(transactions.entered().await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(transactions::hold).isInstanceOf(TccRejectedException.class);
+        assertThat(registry.counter("tcc.admission.rejected", "method", LimitedTransactions.class.getName() + ".hold",
+            "limit", "method").count()).isEqualTo(1);
+
+        transactions.release().countDown();
+        first.get(10, TimeUnit.SECONDS);
+        transactions.hold();
+    }
+
+    @Test
+    void cancelsTriesStartingAfterTheDeadline() {
+        TccTimeoutException timeout = catchThrowableOfType(TccTimeoutException.class, transactions::slowTries);
+        assertThat(timeout).isNotNull();
+        assertThat(participant.cancelled()).containsExactly(timeout.getTxId());
+    }
+}
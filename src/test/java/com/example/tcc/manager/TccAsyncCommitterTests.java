@@ -0,0 +1,94 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.repository.TccLogRepository;
+import com.example.tcc.support.RecordingParticipant;
+
+@SpringBootTest(properties = "tcc.async-commit.max-attempts=2")
+@Import({ TccAsyncCommitterTests.AsyncPayment.class, RecordingParticipant.class })
+class TccAsyncCommitterTests {
+
+    @Autowired
+    private AsyncPayment payment;
+    @Autowired
+    private RecordingParticipant participant;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+
+    @Component
+    public static class AsyncPayment {
+
+        @Autowired
+        private RecordingParticipant participant;
+
+        /**
+         * @param failures confirms of the second participant that fail
+         * @return txId
+         */
+        @TccGlobalTransaction(asyncCommit = true)
+        public String pay(int failures) {
+            String txId = TccTransactionContextHolder.getTxId();
+            participant.failNext(txId + ":b", failures);
+            participant.reserve(txId + ":a");
+            participant.reserve(txId + ":b");
+            return txId;
+        }
+    }
+
+    @Test
+    void failedConfirmIsRetriedUnderTheLease() throws InterruptedException {
+        String txId = payment.pay(1);
+
+        // the lease keeps recovery away for a whole grace period, the retry comes well before
+        TccLog leased = awaitCompletedParticipants(txId);
+        assertThat(leased.getNextRetryTime()).isAfter(LocalDateTime.now());
+        assertThat(leased.getRetryCount()).isZero();
+
+        awaitRemoved(txId);
+        assertThat(participant.confirmed()).filteredOn(id -> id.startsWith(txId))
+            .containsExactlyInAnyOrder(txId + ":a", txId + ":b");
+    }
+
+    @Test
+    void recoveryTakesOverAfterTheLastAttempt() throws InterruptedException {
+        String txId = payment.pay(2);
+
+        awaitRemoved(txId);
+        assertThat(participant.confirmed()).filteredOn(id -> id.startsWith(txId))
+            .containsExactlyInAnyOrder(txId + ":a", txId + ":b");
+    }
+
+    private TccLog awaitCompletedParticipants(String txId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            TccLog tccLog = tccLogRepository.findById(txId).orElse(null);
+            if (tccLog == null || tccLog.getCompletedParticipants() != null) {
+                assertThat(tccLog).as("row of %s after the first attempt", txId).isNotNull();
+                return tccLog;
+            }
+            assertThat(System.nanoTime()).as("first attempt of %s", txId).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitRemoved(String txId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (tccLogRepository.existsById(txId)) {
+            assertThat(System.nanoTime()).as("confirm of %s", txId).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
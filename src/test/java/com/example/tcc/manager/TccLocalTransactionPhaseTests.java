@@ -0,0 +1,127 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.tcc.anno.TccAction;
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.repository.WalletRepository;
+
+/**
+ * Local participants sharing the DataSource confirm in one local transaction first
+ */
+@SpringBootTest
+@Import({ TccLocalTransactionPhaseTests.Credits.class, TccLocalTransactionPhaseTests.ThreeCredits.class })
+class TccLocalTransactionPhaseTests {
+
+    @Autowired
+    private ThreeCredits threeCredits;
+    @Autowired
+    private Credits credits;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    /**
+     * Confirm adds one to the balance in its own local transaction
+     */
+    @Component
+    public static class Credits {
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private final Map<String, AtomicInteger> confirmCalls = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+        public int confirmCalls(String ownerId) {
+            return confirmCalls.getOrDefault(ownerId, new AtomicInteger()).get();
+        }
+
+        public void failNext(String ownerId, int times) {
+            failures.put(ownerId, new AtomicInteger(times));
+        }
+
+        @TccAction(confirmMethod = "confirm", cancelMethod = "cancel")
+        public void credit(String ownerId) {
+        }
+
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        public void confirm(String ownerId) {
+            confirmCalls.computeIfAbsent(ownerId, k -> new AtomicInteger()).incrementAndGet();
+            jdbcTemplate.update("update wallet set balance = balance + 1 where owner_id = ?", ownerId);
+            AtomicInteger remaining = failures.get(ownerId);
+            if (remaining != null && remaining.getAndDecrement() > 0) {
+                // after the write, which must not survive
+                throw new IllegalStateException("Injected confirm failure for " + ownerId);
+            }
+        }
+
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        public void cancel(String ownerId) {
+        }
+    }
+
+    @Component
+    public static class ThreeCredits {
+
+        @Autowired
+        private Credits credits;
+
+        @TccGlobalTransaction
+        public void run(String a, String b, String c) {
+            credits.credit(a);
+            credits.credit(b);
+            credits.credit(c);
+        }
+    }
+
+    @Test
+    void failedSharedConfirmFallsBackAndAppliesEachParticipantOnce() throws Exception {
+        String a = createWallet("local-a");
+        String b = createWallet("local-b");
+        String c = createWallet("local-c");
+        // the last confirm of the shared transaction fails, after a and b have written
+        credits.failNext(c, 1);
+
+        threeCredits.run(a, b, c);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        // once in the shared transaction that rolled back, once on its own
+        while (credits.confirmCalls(a) < 2 || credits.confirmCalls(b) < 2 || credits.confirmCalls(c) < 2) {
+            assertThat(System.nanoTime()).as("confirms run one by one").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+        for (String ownerId : new String[] { a, b, c }) {
+            assertThat(balance(ownerId)).as("balance of %s", ownerId).isEqualByComparingTo("1.00");
+        }
+    }
+
+    private String createWallet(String ownerId) {
+        Wallet wallet = new Wallet();
+        wallet.setOwnerId(ownerId);
+        wallet.setShardNo(0);
+        wallet.setBalance(new BigDecimal("0.00"));
+        wallet.setFrozenBalance(BigDecimal.ZERO);
+        walletRepository.save(wallet);
+        return ownerId;
+    }
+
+    private BigDecimal balance(String ownerId) {
+        return walletRepository.findByOwnerIdAndShardNo(ownerId, 0).getBalance();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.support.RecordingParticipant;
+
+/**
+ * A @TccGlobalTransaction called from within another one joins it
+ */
+@SpringBootTest
+@Import({ TccNestedTransactionTests.OuterTransaction.class, TccNestedTransactionTests.InnerTransaction.class,
+    RecordingParticipant.class })
+class TccNestedTransactionTests {
+
+    @Autowired
+    private OuterTransaction outer;
+    @Autowired
+    private RecordingParticipant participant;
+
+    @Component
+    public static class OuterTransaction {
+
+        @Autowired
+        private InnerTransaction inner;
+        @Autowired
+        private RecordingParticipant participant;
+
+        private volatile String lastTxId;
+
+        public String lastTxId() {
+            return lastTxId;
+        }
+
+        /**
+         * @return txId of the outer transaction
+         */
+        @TccGlobalTransaction
+        public String run(boolean fail) {
+            String txId = TccTransactionContextHolder.getTxId();
+            lastTxId = txId;
+            inner.reserve(txId + ":inner");
+            // the inner transaction neither replaced the context nor committed on its own
+            assertThat(TccTransactionContextHolder.getTxId()).isEqualTo(txId);
+            assertThat(participant.confirmed()).doesNotContain(txId + ":inner");
+            participant.reserve(txId + ":outer");
+            if (fail) {
+                throw new IllegalStateException("outer try failed");
+            }
+            return txId;
+        }
+    }
+
+    @Component
+    public static class InnerTransaction {
+
+        @Autowired
+        private RecordingParticipant participant;
+
+        @TccGlobalTransaction
+        public void reserve(String id) {
+            participant.reserve(id);
+        }
+    }
+
+    @Test
+    void nestedTriesCommitWithTheOuterTransaction() {
+        String txId = outer.run(false);
+        assertThat(participant.confirmed()).contains(txId + ":inner", txId + ":outer");
+    }
+
+    @Test
+    void nestedTriesRollBackWithTheOuterTransaction() {
+        assertThatThrownBy(() -> outer.run(true)).isInstanceOf(IllegalStateException.class);
+        String txId = outer.lastTxId();
+        assertThat(participant.cancelled()).contains(txId + ":inner", txId + ":outer");
+        assertThat(participant.confirmed()).doesNotContain(txId + ":inner", txId + ":outer");
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+
+class TccParticipantExecutorTests {
+
+    private TccParticipantExecutor executor;
+
+    @BeforeEach
+    void start() {
+        executor = new TccParticipantExecutor();
+        ReflectionTestUtils.setField(executor, "properties", new TccProperties());
+        executor.init();
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdown();
+    }
+
+    @Test
+    void membersOfAGroupRunConcurrently() {
+        List<Participant> group = List.of(participant("a", 0), participant("b", 0), participant("c", 0));
+        // nobody gets past the latch unless all three calls are running at the same time
+        CountDownLatch running = new CountDownLatch(group.size());
+
+        TccParticipantExecutor.Result result = executor.confirm(group, p -> {
+            running.countDown();
+            if (!running.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException(p.getBeanName() + " ran alone");
+            }
+        });
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.succeeded()).containsExactlyInAnyOrderElementsOf(group);
+    }
+
+    @Test
+    void groupsRunOneAfterAnother() {
+        List<Participant> participants = List.of(participant("late", 2), participant("first-a", 1),
+            participant("early", 0), participant("first-b", 1));
+        List<String> confirmed = new CopyOnWriteArrayList<>();
+        List<String> cancelled = new CopyOnWriteArrayList<>();
+
+        executor.confirm(participants, p -> confirmed.add(p.getBeanName()));
+        executor.cancel(participants, p -> cancelled.add(p.getBeanName()));
+
+        assertThat(confirmed.get(0)).isEqualTo("early");
+        assertThat(confirmed.subList(1, 3)).containsExactlyInAnyOrder("first-a", "first-b");
+        assertThat(confirmed.get(3)).isEqualTo("late");
+        assertThat(cancelled.get(0)).isEqualTo("late");
+        assertThat(cancelled.subList(1, 3)).containsExactlyInAnyOrder("first-a", "first-b");
+        assertThat(cancelled.get(3)).isEqualTo("early");
+    }
+
+    @Test
+    void confirmStopsAtAFailedGroupWhileCancelAttemptsEveryone() {
+        List<Participant> participants = List.of(participant("ok", 0), participant("broken", 0),
+            participant("also-broken", 0), participant("next", 1));
+        TccParticipantExecutor.ParticipantCall call = p -> {
+            if (p.getBeanName().contains("broken")) {
+                throw new IllegalStateException(p.getBeanName());
+            }
+        };
+
+        TccParticipantExecutor.Result confirm = executor.confirm(participants, call);
+        assertThat(confirm.succeeded()).extracting(Participant::getBeanName).containsExactly("ok");
+        assertThat(confirm.failures()).extracting(f -> f.cause().getMessage())
+            .containsExactlyInAnyOrder("broken", "also-broken");
+
+        TccParticipantExecutor.Result cancel = executor.cancel(participants, call);
+        assertThat(cancel.succeeded()).extracting(Participant::getBeanName).containsExactlyInAnyOrder("ok", "next");
+        assertThat(cancel.failures()).hasSize(2);
+    }
+
+    private static Participant participant(String beanName, int order) {
+        return new Participant(beanName, "confirm", "cancel", new Object[0], order);
+    }
+}
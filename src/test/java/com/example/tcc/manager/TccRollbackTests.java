@@ -0,0 +1,62 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.support.RecordingParticipant;
+
+@SpringBootTest
+@Import({ TccRollbackTests.FailingTransaction.class, RecordingParticipant.class })
+class TccRollbackTests {
+
+    @Autowired
+    private FailingTransaction transaction;
+    @Autowired
+    private RecordingParticipant participant;
+
+    @Component
+    public static class FailingTransaction {
+
+        @Autowired
+        private RecordingParticipant participant;
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        private volatile String lastTxId;
+
+        public String lastTxId() {
+            return lastTxId;
+        }
+
+        /**
+         * One try without a local transaction, then one whose local transaction rolls back
+         */
+        @TccGlobalTransaction
+        public void run() {
+            String txId = TccTransactionContextHolder.getTxId();
+            lastTxId = txId;
+            participant.reserve(txId + ":committed");
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                participant.reserve(txId + ":rolled-back");
+                throw new IllegalStateException("try failed");
+            });
+        }
+    }
+
+    @Test
+    void tryWhoseLocalTransactionRolledBackIsNotCancelled() {
+        assertThatThrownBy(transaction::run).isInstanceOf(IllegalStateException.class);
+        String txId = transaction.lastTxId();
+        assertThat(participant.cancelled()).containsExactly(txId + ":committed");
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.tcc.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.Participant;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.store.ParticipantStore;
+import com.example.tcc.support.RecordingParticipant;
+
+@SpringBootTest
+@Import({ TccTryExecutorTests.ParallelTries.class, RecordingParticipant.class })
+class TccTryExecutorTests {
+
+    @Autowired
+    private ParallelTries tries;
+    @Autowired
+    private RecordingParticipant participant;
+
+    @Component
+    public static class ParallelTries {
+
+        @Autowired
+        private TccTryExecutor tryExecutor;
+        @Autowired
+        private RecordingParticipant participant;
+        @Autowired
+        private ParticipantStore participantStore;
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        private volatile String lastTxId;
+
+        public String lastTxId() {
+            return lastTxId;
+        }
+
+        /**
+         * One try commits, its sibling's local transaction rolls back
+         */
+        @TccGlobalTransaction
+        public void oneFails() {
+            String txId = TccTransactionContextHolder.getTxId();
+            lastTxId = txId;
+            tryExecutor.runAll(
+                () -> participant.reserve(txId + ":ok"),
+                () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    participant.reserve(txId + ":failed");
+                    throw new IllegalStateException("try failed");
+                }));
+        }
+
+        /**
+         * The first try commits last
+         * @return participant ids in memory and in the store, before the commit
+         */
+        @TccGlobalTransaction
+        public List<List<Object>> commitOrder() {
+            String txId = TccTransactionContextHolder.getTxId();
+            tryExecutor.runAll(
+                () -> inTransaction(txId + ":late", 300),
+                () -> inTransaction(txId + ":early", 0));
+            return List.of(ids(TccTransactionContextHolder.getContext().getParticipants()), ids(participantStore.load(txId)));
+        }
+
+        private void inTransaction(String id, long commitDelayMs) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                participant.reserve(id);
+                try {
+                    Thread.sleep(commitDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        private static List<Object> ids(List<Participant> participants) {
+            return participants.stream().map(p -> p.getArgs()[0]).toList();
+        }
+    }
+
+    @Test
+    void failedTryCancelsTheSiblingThatCommitted() {
+        assertThatThrownBy(tries::oneFails).isInstanceOf(IllegalStateException.class);
+        String txId = tries.lastTxId();
+        assertThat(participant.cancelled()).filteredOn(id -> id.startsWith(txId)).containsExactly(txId + ":ok");
+        assertThat(participant.confirmed()).noneMatch(id -> id.startsWith(txId));
+    }
+
+    @Test
+    void participantsJoinInCommitOrder() {
+        List<List<Object>> order = tries.commitOrder();
+        assertThat(order.get(0)).hasSize(2);
+        assertThat((String) order.get(0).get(0)).endsWith(":early");
+        assertThat(order.get(1)).isEqualTo(order.get(0));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.tcc.recovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.example.tcc.context.Participant;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.manager.TccActionRegistry;
+import com.example.tcc.repository.TccLogRepository;
+import com.example.tcc.store.ParticipantStore;
+import com.example.tcc.store.TccLogStore;
+import com.example.tcc.support.RecordingParticipant;
+
+/**
+ * Participants left by a coordinator that crashed before the lazy TccLog row was written
+ */
+@SpringBootTest(properties = "tcc.log-writer.lazy=true")
+@Import(RecordingParticipant.class)
+class TccOrphanRecoveryTests {
+
+    @Autowired
+    private ParticipantStore participantStore;
+    @Autowired
+    private TccLogStore tccLogStore;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @Autowired
+    private TccActionRegistry actionRegistry;
+    @Autowired
+    private RecordingParticipant participant;
+
+    @Test
+    void participantsWithoutARowAreCancelled() throws Exception {
+        String orphan = UUID.randomUUID().toString();
+        participantStore.append(orphan, List.of(reserve(orphan)));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!participant.cancelled().contains(orphan) || tccLogRepository.existsById(orphan)) {
+            assertThat(System.nanoTime()).as("orphan %s cancelled", orphan).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+        assertThat(participant.cancelled()).containsOnlyOnce(orphan);
+        assertThat(participantStore.load(orphan)).isEmpty();
+    }
+
+    @Test
+    void participantsOfALiveTransactionAreLeftAlone() throws Exception {
+        String txId = UUID.randomUUID().toString();
+        TccLog tccLog = new TccLog();
+        tccLog.setTxId(txId);
+        tccLog.setStatus("TRYING");
+        tccLog.setCreatedTime(LocalDateTime.now());
+        tccLog.setRetryCount(0);
+        tccLog.setPartitionKey(TccLog.partitionKey(txId));
+        // held in memory, then written as TRYING once past the lazy threshold, before it could look orphaned
+        tccLogStore.insert(tccLog);
+        participantStore.append(txId, List.of(reserve(txId)));
+
+        // past the orphan age of lazy threshold + grace period and a few recovery runs
+        Thread.sleep(2500);
+        assertThat(participant.cancelled()).doesNotContain(txId);
+        assertThat(tccLogRepository.findById(txId).orElseThrow().getStatus()).isEqualTo("TRYING");
+        tccLogStore.delete(txId);
+        participantStore.remove(txId);
+    }
+
+    private Participant reserve(String id) {
+        return new Participant(actionRegistry.getBeanName(RecordingParticipant.class), "confirm", "cancel", new Object[] { id });
+    }
+}
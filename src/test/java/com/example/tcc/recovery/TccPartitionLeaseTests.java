@@ -0,0 +1,127 @@
+package com.example.tcc.recovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.tcc.TccApplication;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.repository.TccLogRepository;
+
+/**
+ * Several coordinator instances in one JVM, each its own application context on one shared database
+ */
+class TccPartitionLeaseTests {
+
+    private static final int PARTITIONS = 12;
+
+    private final String url = "jdbc:h2:mem:tcc-leases-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+    @AfterEach
+    void stopInstances() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void instancesSplitPartitionsAndTakeOverFromLeavingPeers() throws Exception {
+        // only a recovers, so the rows left behind show which partitions it scans
+        ConfigurableApplicationContext a = start("a", true);
+        ConfigurableApplicationContext b = start("b", false);
+        ConfigurableApplicationContext c = start("c", false);
+        awaitSplit(a, b, c);
+
+        TccLogRepository tccLogRepository = a.getBean(TccLogRepository.class);
+        List<String> txIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            String txId = UUID.randomUUID().toString();
+            TccLog tccLog = new TccLog();
+            tccLog.setTxId(txId);
+            tccLog.setStatus("CANCELING");
+            tccLog.setCreatedTime(LocalDateTime.now().minusHours(1));
+            tccLog.setRetryCount(0);
+            tccLog.setPartitionKey(TccLog.partitionKey(txId));
+            tccLogRepository.save(tccLog);
+            txIds.add(txId);
+        }
+        await(() -> txIds.stream().filter(txId -> leases(a).owns(txId)).noneMatch(tccLogRepository::existsById));
+        Thread.sleep(1000);
+        assertThat(txIds.stream().filter(txId -> !leases(a).owns(txId)).allMatch(tccLogRepository::existsById)).isTrue();
+
+        close(b);
+        awaitSplit(a, c);
+        await(() -> txIds.stream().filter(txId -> leases(a).owns(txId)).noneMatch(tccLogRepository::existsById));
+        assertThat(txIds.stream().filter(txId -> leases(c).owns(txId)).allMatch(tccLogRepository::existsById)).isTrue();
+
+        close(c);
+        awaitSplit(a);
+        await(() -> txIds.stream().noneMatch(tccLogRepository::existsById));
+
+        ConfigurableApplicationContext d = start("d", false);
+        awaitSplit(a, d);
+    }
+
+    private ConfigurableApplicationContext start(String instanceId, boolean recovery) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TccApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=" + url,
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--tcc.recovery.enabled=" + recovery,
+                "--tcc.partitioning.enabled=true",
+                "--tcc.partitioning.instance-id=" + instanceId,
+                "--tcc.partitioning.partitions=" + PARTITIONS,
+                "--tcc.partitioning.lease-ttl-ms=2000",
+                "--tcc.partitioning.renew-interval-ms=100");
+        instances.add(context);
+        return context;
+    }
+
+    private void close(ConfigurableApplicationContext context) {
+        instances.remove(context);
+        context.close();
+    }
+
+    /**
+     * Wait until the instances own disjoint fair shares that together cover every partition
+     */
+    private static void awaitSplit(ConfigurableApplicationContext... contexts) throws InterruptedException {
+        int fairShare = (PARTITIONS + contexts.length - 1) / contexts.length;
+        await(() -> {
+            Set<Integer> all = new HashSet<>();
+            int total = 0;
+            for (ConfigurableApplicationContext context : contexts) {
+                Set<Integer> owned = leases(context).ownedPartitions();
+                if (owned.size() > fairShare) {
+                    return false;
+                }
+                all.addAll(owned);
+                total += owned.size();
+            }
+            return total == PARTITIONS && all.size() == PARTITIONS;
+        });
+    }
+
+    private static TccPartitionLeases leases(ConfigurableApplicationContext context) {
+        return context.getBean(TccPartitionLeases.class);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
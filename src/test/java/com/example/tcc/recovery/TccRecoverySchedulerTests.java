@@ -0,0 +1,113 @@
+package com.example.tcc.recovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.exception.TccParticipantException;
+import com.example.tcc.repository.TccLogRepository;
+import com.example.tcc.support.RecordingParticipant;
+
+@SpringBootTest
+@Import({ TccRecoverySchedulerTests.ThreeTries.class, RecordingParticipant.class })
+class TccRecoverySchedulerTests {
+
+    @Autowired
+    private TccRecoveryScheduler scheduler;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @Autowired
+    private ThreeTries threeTries;
+    @Autowired
+    private RecordingParticipant participant;
+
+    @Component
+    public static class ThreeTries {
+
+        @Autowired
+        private RecordingParticipant participant;
+
+        private volatile String lastTxId;
+
+        public String lastTxId() {
+            return lastTxId;
+        }
+
+        /**
+         * The confirm of b fails once
+         */
+        @TccGlobalTransaction
+        public void run() {
+            String txId = TccTransactionContextHolder.getTxId();
+            lastTxId = txId;
+            participant.failNext(txId + ":b", 1);
+            participant.reserve(txId + ":a");
+            participant.reserve(txId + ":b");
+            participant.reserve(txId + ":c");
+        }
+    }
+
+    @Test
+    void graceCountsFromTheStatusChangeNotFromBegin() {
+        // a try that ran for an hour and has just been marked CONFIRMING belongs to the live path
+        String live = save("CONFIRMING", LocalDateTime.now().minusHours(1), LocalDateTime.now());
+        String stuck = save("CONFIRMING", LocalDateTime.now().minusHours(1), LocalDateTime.now().minusHours(1));
+
+        scheduler.recover();
+
+        TccLog liveLog = tccLogRepository.findById(live).orElseThrow();
+        assertThat(liveLog.getRetryCount()).isZero();
+        assertThat(tccLogRepository.existsById(stuck)).isFalse();
+    }
+
+    @Test
+    void rowsWithoutStatusTimeCountFromCreation() {
+        // written before statusTime existed
+        String old = save("CONFIRMING", LocalDateTime.now().minusHours(1), null);
+        String young = save("CONFIRMING", LocalDateTime.now(), null);
+
+        scheduler.recover();
+
+        assertThat(tccLogRepository.existsById(old)).isFalse();
+        assertThat(tccLogRepository.findById(young).orElseThrow().getRetryCount()).isZero();
+    }
+
+    @Test
+    void retryConfirmsOnlyTheParticipantsThatFailed() throws InterruptedException {
+        assertThatThrownBy(threeTries::run).isInstanceOf(TccParticipantException.class);
+        String txId = threeTries.lastTxId();
+        assertThat(tccLogRepository.findById(txId).orElseThrow().getCompletedParticipants()).isEqualTo("0,2");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (tccLogRepository.existsById(txId)) {
+            assertThat(System.nanoTime()).as("recovery of %s", txId).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+        assertThat(participant.confirmed()).filteredOn(id -> id.startsWith(txId))
+            .containsExactlyInAnyOrder(txId + ":a", txId + ":b", txId + ":c");
+    }
+
+    private String save(String status, LocalDateTime createdTime, LocalDateTime statusTime) {
+        TccLog tccLog = new TccLog();
+        tccLog.setTxId(UUID.randomUUID().toString());
+        tccLog.setStatus(status);
+        tccLog.setCreatedTime(createdTime);
+        tccLog.setStatusTime(statusTime);
+        tccLog.setRetryCount(0);
+        tccLog.setPartitionKey(TccLog.partitionKey(tccLog.getTxId()));
+        tccLogRepository.save(tccLog);
+        return tccLog.getTxId();
+    }
+}
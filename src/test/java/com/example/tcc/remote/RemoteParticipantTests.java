@@ -0,0 +1,229 @@
+package com.example.tcc.remote;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.tcc.TccApplication;
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.anno.TccRemoteAction;
+import com.example.tcc.context.Participant;
+import com.example.tcc.dto.WalletBalance;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.exception.TccRemoteException;
+import com.example.tcc.repository.WalletRepository;
+import com.example.tcc.service.WalletService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coordinator in the test context, wallets on a second application context in the same JVM
+ */
+@SpringBootTest
+@Import({ RemoteParticipantTests.RemoteWalletClient.class, RemoteParticipantTests.RemotePayment.class })
+class RemoteParticipantTests {
+
+    private static ConfigurableApplicationContext walletNode;
+    private static String walletUrl;
+
+    @Autowired
+    private RemotePayment remotePayment;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private RemoteParticipantClient client;
+    @Autowired
+    private RemoteCallSigner signer;
+
+    @DynamicPropertySource
+    static void walletNode(DynamicPropertyRegistry registry) {
+        walletNode = new SpringApplicationBuilder(TccApplication.class)
+            .properties("server.port=0", "tcc.remote.participant-endpoint-enabled=true").run();
+        walletUrl = "http://localhost:" + ((WebServerApplicationContext) walletNode).getWebServer().getPort();
+        registry.add("tcc.remote.nodes.wallet", () -> walletUrl);
+    }
+
+    @AfterAll
+    static void stopWalletNode() {
+        walletNode.close();
+    }
+
+    @Component
+    public static class RemoteWalletClient {
+
+        @TccRemoteAction(node = "wallet", bean = "walletService", tryMethod = "tryDeduct",
+            confirmMethod = "confirmDeduct", cancelMethod = "cancelDeduct")
+        public void tryDeduct(String userId, BigDecimal amount) {
+        }
+
+        @TccRemoteAction(node = "wallet", bean = "walletService", tryMethod = "tryCredit",
+            confirmMethod = "confirmCredit", cancelMethod = "cancelCredit")
+        public void tryCredit(String userId, BigDecimal amount) {
+        }
+    }
+
+    @Component
+    public static class RemotePayment {
+
+        @Autowired
+        private RemoteWalletClient wallets;
+
+        @TccGlobalTransaction
+        public void pay(String userId, String merchantId, BigDecimal amount) {
+            wallets.tryDeduct(userId, amount);
+            wallets.tryCredit(merchantId, amount);
+        }
+    }
+
+    @BeforeEach
+    void seedWallets() {
+        WalletRepository wallets = walletNode.getBean(WalletRepository.class);
+        wallets.deleteAll();
+        wallets.save(wallet("user-1", new BigDecimal("100.00")));
+        wallets.save(wallet("merchant-1", BigDecimal.ZERO));
+    }
+
+    @Test
+    void confirmsBothRemoteParticipantsInOneRequest() {
+        double batchesBefore = confirmBatches();
+
+        remotePayment.pay("user-1", "merchant-1", new BigDecimal("30.25"));
+
+        assertBalance("user-1", "69.75");
+        assertBalance("merchant-1", "30.25");
+        assertThat(confirmBatches() - batchesBefore).isEqualTo(1);
+    }
+
+    @Test
+    void cancelsTheRemoteTriesThatSucceeded() {
+        assertThatThrownBy(() -> remotePayment.pay("user-1", "merchant-1", new BigDecimal("500.00")))
+            .isInstanceOf(TccRemoteException.class);
+
+        assertBalance("user-1", "100.00");
+        assertBalance("merchant-1", "0.00");
+    }
+
+    @Test
+    void resentConfirmIsAppliedOnce() throws Throwable {
+        String txId = UUID.randomUUID().toString();
+        Participant credit = remoteParticipant("tryCredit", "confirmCredit", "cancelCredit", "merchant-1", "12.00");
+        client.tryAction(txId, "wallet", new RemoteCall(credit.getBranchId(), "walletService", "tryCredit", credit.getArgs()));
+        // the same try again, e.g. a duplicate delivery
+        client.tryAction(txId, "wallet", new RemoteCall(credit.getBranchId(), "walletService", "tryCredit", credit.getArgs()));
+
+        client.batchCall(txId, "confirm", List.of(credit)).call(credit);
+        // as recovery does after a confirm batch timed out
+        client.batchCall(txId, "confirm", List.of(credit)).call(credit);
+
+        assertBalance("merchant-1", "12.00");
+        assertThatThrownBy(() -> client.batchCall(txId, "cancel", List.of(credit)).call(credit))
+            .isInstanceOf(TccRemoteException.class);
+        assertBalance("merchant-1", "12.00");
+    }
+
+    @Test
+    void cancelBeforeTheTryKeepsTheTryFromApplying() throws Throwable {
+        String txId = UUID.randomUUID().toString();
+        Participant deduct = remoteParticipant("tryDeduct", "confirmDeduct", "cancelDeduct", "user-1", "40.00");
+
+        // the try is still in flight when the transaction rolls back
+        client.batchCall(txId, "cancel", List.of(deduct)).call(deduct);
+        assertThatThrownBy(() -> client.tryAction(txId, "wallet",
+            new RemoteCall(deduct.getBranchId(), "walletService", "tryDeduct", deduct.getArgs())))
+            .isInstanceOfSatisfying(TccRemoteException.class, e -> assertThat(e.isOutcomeUnknown()).isFalse());
+
+        assertBalance("user-1", "100.00");
+    }
+
+    @Test
+    void rejectsCallsWithoutAValidSignature() throws Exception {
+        byte[] body = "[{\"beanName\":\"walletService\",\"method\":\"confirmCredit\",\"args\":[\"merchant-1\",1000]}]"
+            .getBytes(StandardCharsets.UTF_8);
+        long timestamp = System.currentTimeMillis();
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpRequest unsigned = HttpRequest.newBuilder(URI.create(walletUrl + "/tcc/participants/confirm"))
+            .header("Content-Type", "application/json")
+            .header(RemoteParticipantClient.TX_ID_HEADER, "forged")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        assertThat(client.send(unsigned, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(401);
+
+        HttpRequest wrongSecret = HttpRequest.newBuilder(URI.create(walletUrl + "/tcc/participants/confirm"))
+            .header("Content-Type", "application/json")
+            .header(RemoteParticipantClient.TX_ID_HEADER, "forged")
+            .header(RemoteCallSigner.TIMESTAMP_HEADER, String.valueOf(timestamp))
+            .header(RemoteCallSigner.SIGNATURE_HEADER, "00".repeat(32))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        assertThat(client.send(wrongSecret, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(401);
+
+        assertBalance("merchant-1", "0.00");
+    }
+
+    @Test
+    void rejectsAReplayedRequest() throws Exception {
+        byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+        String requestId = UUID.randomUUID().toString();
+        long timestamp = System.currentTimeMillis();
+        HttpRequest signed = HttpRequest.newBuilder(URI.create(walletUrl + "/tcc/participants/confirm"))
+            .header("Content-Type", "application/json")
+            .header(RemoteParticipantClient.TX_ID_HEADER, "captured")
+            .header(RemoteCallSigner.REQUEST_ID_HEADER, requestId)
+            .header(RemoteCallSigner.TIMESTAMP_HEADER, String.valueOf(timestamp))
+            .header(RemoteCallSigner.SIGNATURE_HEADER, signer.sign("confirm", "captured", requestId, timestamp, body))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        HttpClient httpClient = HttpClient.newHttpClient();
+
+        assertThat(httpClient.send(signed, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(200);
+        assertThat(httpClient.send(signed, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(409);
+    }
+
+    private double confirmBatches() {
+        return meterRegistry.find("tcc.participant").tags("phase", "confirm", "method", "batch").timers().stream()
+            .mapToDouble(t -> t.count()).sum();
+    }
+
+    private static Participant remoteParticipant(String tryMethod, String confirmMethod, String cancelMethod,
+                                                 String ownerId, String amount) {
+        return new Participant("walletService", confirmMethod, cancelMethod, new Object[] { ownerId, new BigDecimal(amount) },
+            0, "wallet", UUID.randomUUID().toString());
+    }
+
+    private static void assertBalance(String ownerId, String balance) {
+        WalletBalance actual = walletNode.getBean(WalletService.class).getBalance(ownerId);
+        assertThat(actual.balance()).isEqualByComparingTo(balance);
+        assertThat(actual.frozenBalance()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    private static Wallet wallet(String ownerId, BigDecimal balance) {
+        Wallet wallet = new Wallet();
+        wallet.setOwnerId(ownerId);
+        wallet.setShardNo(0);
+        wallet.setBalance(balance);
+        wallet.setFrozenBalance(BigDecimal.ZERO);
+        return wallet;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.tcc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.dto.Transfer;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.repository.WalletRepository;
+
+/**
+ * A netted batch must leave every wallet as the same transfers paid one by one
+ */
+@SpringBootTest
+@Import(PaymentServiceTests.FailingBatch.class)
+class PaymentServiceTests {
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private FailingBatch failingBatch;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Component
+    public static class FailingBatch {
+
+        @Autowired
+        private PaymentService paymentService;
+
+        /**
+         * Run the payments inside one global transaction that fails afterwards, so they are cancelled
+         */
+        @TccGlobalTransaction
+        public void run(Consumer<PaymentService> payments) {
+            payments.accept(paymentService);
+            throw new IllegalStateException("batch failed");
+        }
+    }
+
+    @Test
+    void nettedConfirmsMatchOneByOne() {
+        paymentService.processPayments(transfers("netted"));
+        for (Transfer transfer : transfers("single")) {
+            paymentService.processPayment(transfer.userId(), transfer.merchantId(), transfer.amount());
+        }
+
+        assertBalances("netted", "80.00", "50.00", "20.00");
+        assertBalances("single", "80.00", "50.00", "20.00");
+    }
+
+    @Test
+    void nettedCancelsMatchOneByOne() {
+        assertThatThrownBy(() -> failingBatch.run(payments -> payments.processPayments(transfers("netted-cancel"))))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> failingBatch.run(payments -> transfers("single-cancel")
+            .forEach(t -> payments.processPayment(t.userId(), t.merchantId(), t.amount()))))
+            .isInstanceOf(IllegalStateException.class);
+
+        assertBalances("netted-cancel", "100.00", "50.00", "0.00");
+        assertBalances("single-cancel", "100.00", "50.00", "0.00");
+    }
+
+    /**
+     * a pays b, b pays part of it back and pays c: b nets to zero and is never touched by the batch
+     */
+    private List<Transfer> transfers(String prefix) {
+        createWallet(prefix + "-a", "100.00");
+        createWallet(prefix + "-b", "50.00");
+        createWallet(prefix + "-c", "0.00");
+        return List.of(
+            new Transfer(prefix + "-a", prefix + "-b", new BigDecimal("30.00")),
+            new Transfer(prefix + "-b", prefix + "-a", new BigDecimal("10.00")),
+            new Transfer(prefix + "-b", prefix + "-c", new BigDecimal("20.00")));
+    }
+
+    private void assertBalances(String prefix, String a, String b, String c) {
+        String[] expected = { a, b, c };
+        String[] owners = { prefix + "-a", prefix + "-b", prefix + "-c" };
+        for (int i = 0; i < owners.length; i++) {
+            assertThat(walletService.getBalance(owners[i]).balance()).as(owners[i]).isEqualByComparingTo(expected[i]);
+            assertThat(walletService.getBalance(owners[i]).frozenBalance()).as(owners[i]).isEqualByComparingTo(BigDecimal.ZERO);
+        }
+    }
+
+    private void createWallet(String ownerId, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setOwnerId(ownerId);
+        wallet.setShardNo(0);
+        wallet.setBalance(new BigDecimal(balance));
+        wallet.setFrozenBalance(BigDecimal.ZERO);
+        walletRepository.save(wallet);
+    }
+}
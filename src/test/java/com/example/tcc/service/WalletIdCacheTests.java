@@ -0,0 +1,82 @@
+package com.example.tcc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.tcc.config.WalletProperties;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.repository.WalletRepository;
+
+class WalletIdCacheTests {
+
+    private final WalletRepository walletRepository = mock(WalletRepository.class);
+    private final WalletProperties walletProperties = new WalletProperties();
+    private final List<Wallet> rows = new ArrayList<>();
+    private WalletIdCache cache;
+
+    @BeforeEach
+    void start() {
+        cache = new WalletIdCache();
+        ReflectionTestUtils.setField(cache, "walletRepository", walletRepository);
+        ReflectionTestUtils.setField(cache, "walletProperties", walletProperties);
+        cache.init();
+        // a fresh list per call, as the repository returns
+        when(walletRepository.findByOwnerIdOrderByShardNo("merchant")).thenAnswer(invocation -> new ArrayList<>(rows));
+        addShard(10);
+    }
+
+    @Test
+    void entryIsServedFromMemory() {
+        assertThat(cache.get("merchant")).containsExactly(10);
+        assertThat(cache.get("merchant")).containsExactly(10);
+        verify(walletRepository, times(1)).findByOwnerIdOrderByShardNo("merchant");
+    }
+
+    @Test
+    void entryWithFewerShardsThanConfiguredIsReloaded() {
+        assertThat(cache.get("merchant")).containsExactly(10);
+
+        // the owner is split into sub-accounts while the node runs
+        walletProperties.getShards().put("merchant", 3);
+        addShard(11);
+        addShard(12);
+
+        assertThat(cache.get("merchant")).containsExactly(10, 11, 12);
+        assertThat(cache.get("merchant")).containsExactly(10, 11, 12);
+        verify(walletRepository, times(2)).findByOwnerIdOrderByShardNo("merchant");
+    }
+
+    @Test
+    void evictedEntryIsReloaded() {
+        assertThat(cache.get("merchant")).containsExactly(10);
+
+        // the wallet was recreated with new row ids
+        rows.clear();
+        addShard(20);
+        cache.evict("merchant");
+
+        assertThat(cache.get("merchant")).containsExactly(20);
+        verify(walletRepository, times(2)).findByOwnerIdOrderByShardNo("merchant");
+    }
+
+    private void addShard(int id) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setOwnerId("merchant");
+        wallet.setShardNo(rows.size());
+        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setFrozenBalance(BigDecimal.ZERO);
+        rows.add(wallet);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.tcc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccGlobalTransaction;
+import com.example.tcc.context.TccTransactionContext;
+import com.example.tcc.context.TccTransactionContextHolder;
+import com.example.tcc.dto.WalletBalance;
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.manager.TccTryExecutor;
+import com.example.tcc.repository.WalletRepository;
+
+/**
+ * Ledger mode with the same owner moved more than once in one global transaction. Confirms run
+ * one transaction per participant, so those of one owner run concurrently too.
+ */
+@SpringBootTest(properties = { "wallet.ledger.enabled=true", "tcc.executor.shared-local-transaction=false" })
+@Import({ WalletLedgerTests.TwoDeducts.class, WalletLedgerTests.ConcurrentCredits.class })
+class WalletLedgerTests {
+
+    @Autowired
+    private TwoDeducts twoDeducts;
+    @Autowired
+    private ConcurrentCredits concurrentCredits;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Component
+    public static class TwoDeducts {
+
+        @Autowired
+        private WalletService walletService;
+
+        /**
+         * @return txId
+         */
+        @TccGlobalTransaction
+        public String pay(String ownerId) {
+            walletService.tryDeduct(ownerId, new BigDecimal("10.00"));
+            walletService.tryDeduct(ownerId, new BigDecimal("20.00"));
+            return TccTransactionContextHolder.getTxId();
+        }
+    }
+
+    @Component
+    public static class ConcurrentCredits {
+
+        @Autowired
+        private WalletService walletService;
+        @Autowired
+        private TccTryExecutor tryExecutor;
+
+        @TccGlobalTransaction
+        public void pay(String ownerId, int credits) {
+            tryExecutor.runAll(Collections.nCopies(credits, (Runnable) () -> walletService.tryCredit(ownerId, BigDecimal.ONE))
+                .toArray(Runnable[]::new));
+        }
+    }
+
+    @Test
+    void everyTryOfTheSameOwnerIsConfirmedOnce() throws Exception {
+        createWallet("ledger-user", "100.00");
+
+        String txId = twoDeducts.pay("ledger-user");
+        awaitFrozen("ledger-user", BigDecimal.ZERO);
+        assertThat(walletService.getBalance("ledger-user").balance()).isEqualByComparingTo("70.00");
+
+        // confirms repeated by recovery change nothing
+        TccTransactionContextHolder.runWith(new TccTransactionContext(txId), () -> {
+            walletService.confirmDeduct("ledger-user", new BigDecimal("10.00"));
+            walletService.confirmDeduct("ledger-user", new BigDecimal("20.00"));
+        });
+        WalletBalance balance = walletService.getBalance("ledger-user");
+        assertThat(balance.balance()).isEqualByComparingTo("70.00");
+        assertThat(balance.frozenBalance()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void concurrentMovementsOfTheSameOwnerAllApply() throws Exception {
+        createWallet("ledger-merchant", "0.00");
+
+        // credits hold no wallet lock, so without taking turns they would draw the same entry number
+        concurrentCredits.pay("ledger-merchant", 8);
+        awaitFrozen("ledger-merchant", BigDecimal.ZERO);
+        assertThat(walletService.getBalance("ledger-merchant").balance()).isEqualByComparingTo("8.00");
+    }
+
+    private void createWallet(String ownerId, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setOwnerId(ownerId);
+        wallet.setShardNo(0);
+        wallet.setBalance(new BigDecimal(balance));
+        wallet.setFrozenBalance(BigDecimal.ZERO);
+        walletRepository.save(wallet);
+    }
+
+    /**
+     * Confirms may run in the background after the global transaction returns
+     */
+    private void awaitFrozen(String ownerId, BigDecimal frozen) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (walletService.getBalance(ownerId).frozenBalance().compareTo(frozen) != 0) {
+            assertThat(System.nanoTime()).as("frozen balance of %s", ownerId).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
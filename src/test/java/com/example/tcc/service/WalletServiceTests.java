@@ -0,0 +1,91 @@
+package com.example.tcc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.tcc.entity.Wallet;
+import com.example.tcc.repository.WalletRepository;
+
+/**
+ * Guarded balance movements of the row-per-shard wallet, called directly without a global transaction
+ */
+@SpringBootTest
+class WalletServiceTests {
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Test
+    void debitSpreadOverShardsCancelsBackToEachShard() {
+        createWallet("spread-owner", "30.00", "30.00", "30.00");
+
+        // no single shard holds 80
+        walletService.tryDeduct("spread-owner", new BigDecimal("80.00"));
+        assertThat(walletService.getBalance("spread-owner").balance()).isEqualByComparingTo("10.00");
+        assertThat(walletService.getBalance("spread-owner").frozenBalance()).isEqualByComparingTo("80.00");
+
+        walletService.cancelDeduct("spread-owner", new BigDecimal("80.00"));
+        assertThat(walletRepository.findByOwnerIdOrderByShardNo("spread-owner")).allSatisfy(shard -> {
+            assertThat(shard.getBalance()).isEqualByComparingTo("30.00");
+            assertThat(shard.getFrozenBalance()).isEqualByComparingTo(BigDecimal.ZERO);
+        });
+    }
+
+    @Test
+    void concurrentDebitsCannotOverdraw() throws Exception {
+        createWallet("contended-owner", "50.00", "50.00");
+
+        // each debit needs both shards, only one of them can get them
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> debits = List.of(debit(start, "contended-owner", "70.00"),
+            debit(start, "contended-owner", "70.00"));
+        start.countDown();
+
+        long succeeded = 0;
+        for (CompletableFuture<Boolean> debit : debits) {
+            succeeded += debit.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(walletService.getBalance("contended-owner").balance()).isEqualByComparingTo("30.00");
+        assertThat(walletService.getBalance("contended-owner").frozenBalance()).isEqualByComparingTo("70.00");
+        assertThat(walletRepository.findByOwnerIdOrderByShardNo("contended-owner"))
+            .allSatisfy(shard -> assertThat(shard.getBalance().signum()).isNotNegative());
+    }
+
+    private CompletableFuture<Boolean> debit(CountDownLatch start, String ownerId, String amount) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                start.await();
+                walletService.tryDeduct(ownerId, new BigDecimal(amount));
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        });
+    }
+
+    private void createWallet(String ownerId, String... shardBalances) {
+        for (int shardNo = 0; shardNo < shardBalances.length; shardNo++) {
+            Wallet wallet = new Wallet();
+            wallet.setOwnerId(ownerId);
+            wallet.setShardNo(shardNo);
+            wallet.setBalance(new BigDecimal(shardBalances[shardNo]));
+            wallet.setFrozenBalance(BigDecimal.ZERO);
+            walletRepository.save(wallet);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.tcc.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.repository.TccLogRepository;
+
+@SpringBootTest
+class GroupCommitTccLogStoreTests {
+
+    @Autowired
+    private GroupCommitTccLogStore store;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+    @MockitoSpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void statusCasIsNotInferredWhenTheDriverReportsNoRowCounts() {
+        // like drivers that answer every batched statement with SUCCESS_NO_INFO
+        doAnswer(invocation -> {
+            int[] counts = (int[]) invocation.callRealMethod();
+            Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+            return counts;
+        }).when(jdbcTemplate).batchUpdate(startsWith("update tcc_log"), anyList());
+
+        TccLog tccLog = new TccLog();
+        tccLog.setTxId(UUID.randomUUID().toString());
+        tccLog.setStatus("TRYING");
+        tccLog.setCreatedTime(LocalDateTime.now());
+        tccLog.setRetryCount(0);
+        tccLog.setPartitionKey(TccLog.partitionKey(tccLog.getTxId()));
+        store.insert(tccLog);
+
+        assertThat(store.updateStatus(tccLog.getTxId(), "TRYING", "CONFIRMING")).isTrue();
+        // the row already reads CONFIRMING, a second claim must still lose
+        assertThat(store.updateStatus(tccLog.getTxId(), "TRYING", "CONFIRMING")).isFalse();
+        assertThat(tccLogRepository.findById(tccLog.getTxId()).orElseThrow().getStatus()).isEqualTo("CONFIRMING");
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.tcc.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.tcc.codec.BinaryParticipantCodec;
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.context.Participant;
+import com.example.tcc.manager.TccActionRegistry;
+
+class JournalParticipantStoreTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysInFlightTransactionsAfterRestart() throws Exception {
+        JournalParticipantStore store = open(64 * 1024);
+        store.append("tx-1", List.of(participant("u1")));
+        store.append("tx-1", List.of(participant("m1")));
+        store.append("tx-2", List.of(participant("u2")));
+        store.remove("tx-2");
+        store.close();
+
+        JournalParticipantStore reopened = open(64 * 1024);
+        assertThat(reopened.load("tx-1")).extracting(p -> p.getArgs()[0]).containsExactly("u1", "m1");
+        assertThat(reopened.load("tx-1").get(0).getArgs()[1]).isEqualTo(new BigDecimal("10.50"));
+        assertThat(reopened.load("tx-2")).isEmpty();
+    }
+
+    @Test
+    void compactsSegmentsPinnedByLongRunningTransactions() throws Exception {
+        JournalParticipantStore store = open(4 * 1024);
+        store.append("long-running", List.of(participant("pinned")));
+        for (int i = 0; i < 500; i++) {
+            store.append("tx-" + i, List.of(participant("u" + i)));
+            store.remove("tx-" + i);
+        }
+        assertThat(segmentCount()).isLessThanOrEqualTo(2);
+        store.close();
+
+        JournalParticipantStore reopened = open(4 * 1024);
+        assertThat(reopened.load("long-running")).extracting(p -> p.getArgs()[0]).containsExactly("pinned");
+        assertThat(reopened.load("tx-499")).isEmpty();
+    }
+
+    @Test
+    void rollThatRelocatesIntoAFullSegmentKeepsEveryRecord() throws Exception {
+        // measure an APPEND and a RESET record of this txId length
+        JournalParticipantStore probe = open(64 * 1024);
+        probe.append("tx-probe", List.of(participant("pinned")));
+        int append = position(probe);
+        probe.remove("tx-probe");
+        int reset = position(probe) - append;
+        probe.close();
+        Files.delete(directory.resolve("segment-00000000000000000001.log"));
+
+        // eight appends fill a segment; relocating them behind a RESET fills the next one exactly
+        JournalParticipantStore store = open(8 * append + reset);
+        for (int i = 0; i < 9; i++) {
+            store.append("tx-long", List.of(participant("p" + i)));
+        }
+        store.close();
+
+        JournalParticipantStore reopened = open(8 * append + reset);
+        assertThat(reopened.load("tx-long")).extracting(p -> p.getArgs()[0])
+            .containsExactly("p0", "p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8");
+    }
+
+    private JournalParticipantStore open(int segmentSize) throws Exception {
+        TccProperties properties = new TccProperties();
+        properties.getParticipantStore().getJournal().setDirectory(directory.toString());
+        properties.getParticipantStore().getJournal().setSegmentSize(segmentSize);
+        BinaryParticipantCodec codec = new BinaryParticipantCodec();
+        ReflectionTestUtils.setField(codec, "actionRegistry", new TccActionRegistry());
+        JournalParticipantStore store = new JournalParticipantStore();
+        ReflectionTestUtils.setField(store, "properties", properties);
+        ReflectionTestUtils.setField(store, "codec", codec);
+        store.open();
+        return store;
+    }
+
+    private int position(JournalParticipantStore store) {
+        return ((MappedByteBuffer) ReflectionTestUtils.getField(ReflectionTestUtils.getField(store, "active"), "buffer")).position();
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private Participant participant(String ownerId) {
+        return new Participant("walletService", "confirmDeduct", "cancelDeduct",
+            new Object[] { ownerId, new BigDecimal("10.50") });
+    }
+}
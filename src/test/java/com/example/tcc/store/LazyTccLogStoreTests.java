@@ -0,0 +1,65 @@
+package com.example.tcc.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.tcc.entity.TccLog;
+import com.example.tcc.repository.TccLogRepository;
+
+@SpringBootTest(properties = "tcc.log-writer.lazy=true")
+class LazyTccLogStoreTests {
+
+    @Autowired
+    private LazyTccLogStore store;
+    @Autowired
+    private TccLogRepository tccLogRepository;
+
+    @Test
+    void rowIsWrittenByTheFirstStatusChange() {
+        TccLog tccLog = trying(LocalDateTime.now());
+        store.insert(tccLog);
+        assertThat(tccLogRepository.existsById(tccLog.getTxId())).isFalse();
+        // the coordinator still reads its own transaction
+        assertThat(store.find(tccLog.getTxId())).map(TccLog::getStatus).contains("TRYING");
+
+        assertThat(store.updateStatus(tccLog.getTxId(), "TRYING", "CONFIRMING")).isTrue();
+        assertThat(tccLogRepository.findById(tccLog.getTxId()).orElseThrow().getStatus()).isEqualTo("CONFIRMING");
+        assertThat(store.updateStatus(tccLog.getTxId(), "TRYING", "CANCELING")).isFalse();
+    }
+
+    @Test
+    void rollbackWithoutStatusChangeWritesNothing() {
+        TccLog tccLog = trying(LocalDateTime.now());
+        store.insert(tccLog);
+        store.delete(tccLog.getTxId());
+        assertThat(store.find(tccLog.getTxId())).isEmpty();
+        assertThat(tccLogRepository.existsById(tccLog.getTxId())).isFalse();
+    }
+
+    @Test
+    void transactionsOlderThanTheThresholdAreWrittenAsTrying() {
+        TccLog tccLog = trying(LocalDateTime.now().minusSeconds(1));
+        store.insert(tccLog);
+        store.persistSlow();
+        assertThat(tccLogRepository.findById(tccLog.getTxId()).orElseThrow().getStatus()).isEqualTo("TRYING");
+        // now a plain row, the CAS goes to the database
+        assertThat(store.updateStatus(tccLog.getTxId(), "TRYING", "CANCELING")).isTrue();
+        assertThat(tccLogRepository.findById(tccLog.getTxId()).orElseThrow().getStatus()).isEqualTo("CANCELING");
+    }
+
+    private static TccLog trying(LocalDateTime createdTime) {
+        TccLog tccLog = new TccLog();
+        tccLog.setTxId(UUID.randomUUID().toString());
+        tccLog.setStatus("TRYING");
+        tccLog.setCreatedTime(createdTime);
+        tccLog.setRetryCount(0);
+        tccLog.setPartitionKey(TccLog.partitionKey(tccLog.getTxId()));
+        return tccLog;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.tcc.support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+
+import com.example.tcc.config.TccProperties;
+import com.example.tcc.store.JournalParticipantStore;
+
+/**
+ * Every test context writes its participant journal to its own directory under target/, see
+ * application.properties. Registered in META-INF/spring.factories, so it also covers contexts
+ * started with SpringApplicationBuilder; the directory is removed when the context closes.
+ */
+public class JournalDirectoryCleaner implements ApplicationListener<ContextClosedEvent> {
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        if (context.getBeanNamesForType(JournalParticipantStore.class).length == 0) {
+            return;
+        }
+        // the configured value holds ${random.uuid}, only the bound properties know the resolved one
+        Path directory = Paths.get(context.getBean(TccProperties.class).getParticipantStore().getJournal().getDirectory());
+        if (!directory.toAbsolutePath().normalize().startsWith(Paths.get("target").toAbsolutePath())) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+}
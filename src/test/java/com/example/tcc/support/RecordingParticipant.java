@@ -0,0 +1,62 @@
+package com.example.tcc.support;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.example.tcc.anno.TccAction;
+
+/**
+ * Local participant for coordinator tests, add it with {@code @Import(RecordingParticipant.class)}.
+ * It records every confirm and cancel by id, in call order, and can be told to fail some of them.
+ * The bean is a proxy, so its state is only reachable through methods.
+ */
+@Component
+public class RecordingParticipant {
+
+    private final List<String> confirmed = new CopyOnWriteArrayList<>();
+    private final List<String> cancelled = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+    public List<String> confirmed() {
+        return confirmed;
+    }
+
+    public List<String> cancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Make the next confirms or cancels of an id throw
+     * @param id
+     * @param times number of calls that fail
+     */
+    public void failNext(String id, int times) {
+        failures.put(id, new AtomicInteger(times));
+    }
+
+    @TccAction(confirmMethod = "confirm", cancelMethod = "cancel")
+    public void reserve(String id) {
+    }
+
+    public void confirm(String id) {
+        fail(id, "confirm");
+        confirmed.add(id);
+    }
+
+    public void cancel(String id) {
+        fail(id, "cancel");
+        cancelled.add(id);
+    }
+
+    private void fail(String id, String phase) {
+        AtomicInteger remaining = failures.get(id);
+        if (remaining != null && remaining.getAndDecrement() > 0) {
+            throw new IllegalStateException("Injected " + phase + " failure for " + id);
+        }
+    }
+}